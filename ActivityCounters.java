@@ -0,0 +1,257 @@
+import java.io.*;
+import java.time.LocalDate;
+
+/**
+ * ActivityCounters keeps how many tasks, assignments and events a user had
+ * on each day, for the activity heatmap. Each kind is one int array indexed
+ * by epoch-day (minus the first day stored), updated as things happen, so
+ * drawing a year of activity reads 365 numbers per kind instead of walking
+ * the task lists and calendar.
+ *
+ * Tasks and assignments count on the day they were completed. Events count
+ * on the day they start; a repeating event counts each occurrence in its
+ * first two years. Only days within ten years of today are kept, which
+ * bounds the arrays. The counters are saved in the user's "activity" data
+ * directory after each change, or once at the end of a batch.
+ *
+ * Counters created for an existing user are seeded from the calendar.
+ * DashboardWorld creates them when the user logs in, so that scan does not
+ * happen inside the first event change. Tasks completed before the counters
+ * existed have no completion date and are not counted.
+ */
+public class ActivityCounters {
+
+    /** Kind of activity: a completed task */
+    public static final int TASKS = 0;
+
+    /** Kind of activity: a completed school assignment */
+    public static final int ASSIGNMENTS = 1;
+
+    /** Kind of activity: a calendar event */
+    public static final int EVENTS = 2;
+
+    /** Number of kinds of activity */
+    public static final int KINDS = 3;
+
+    /** Days of a repeating event's occurrences that are counted */
+    private static final int SERIES_DAYS = 2 * 366;
+
+    /** Days before or after today that are counted */
+    private static final int KEPT_DAYS = 10 * 366;
+
+    /** Version of the file format */
+    private static final int FORMAT = 1;
+
+    private User user;                        // Owner of the counters
+    private long firstDay;                    // Epoch-day stored at index 0
+    private int[][] counts = new int[KINDS][0]; // Count per kind per day
+    private int batchDepth;                   // > 0 while a batch defers writes
+    private boolean dirty;                    // Changed during the batch
+    private long version;                     // Incremented on every change
+
+    /**
+     * Loads a user's counters, seeding them from the calendar if none were saved.
+     *
+     * @param user The user the counters belong to
+     */
+    public ActivityCounters(User user) {
+        this.user = user;
+        if (!load()) {
+            seedFromCalendar();
+            save();
+        }
+    }
+
+    /**
+     * Adds to the count of one kind of activity on a day.
+     *
+     * @param kind     TASKS, ASSIGNMENTS or EVENTS
+     * @param epochDay The day, as days since 1970-01-01
+     * @param delta    Amount to add (negative to undo)
+     */
+    public synchronized void record(int kind, long epochDay, int delta) {
+        if (Math.abs(epochDay - LocalDate.now().toEpochDay()) > KEPT_DAYS) return;
+
+        ensureDay(epochDay);
+        int i = (int) (epochDay - firstDay);
+        counts[kind][i] = Math.max(0, counts[kind][i] + delta);
+        version++;
+        if (batchDepth > 0) {
+            dirty = true;
+        } else {
+            save();
+        }
+    }
+
+    /**
+     * Counts an event on its first day, or each occurrence of a repeating
+     * event in its first two years.
+     *
+     * @param event The event (a one-off event or a stored series)
+     * @param delta 1 when the event is added, -1 when it is removed
+     */
+    public void recordEvent(Event event, final int delta) {
+        RecurrenceRule rule = event.getRule();
+        if (rule == null) {
+            record(EVENTS, event.getFirstDay(), delta);
+            return;
+        }
+
+        beginBatch();
+        try {
+            long firstDay = event.getFirstDay();
+            rule.expand(firstDay, firstDay, firstDay + SERIES_DAYS - 1, new RecurrenceRule.OccurrenceSink() {
+                public void occurrence(long epochDay) {
+                    record(EVENTS, epochDay, delta);
+                }
+            });
+        } finally {
+            commitBatch();
+        }
+    }
+
+    /**
+     * Uncounts one occurrence of a repeating event that is being removed.
+     *
+     * @param occurrence The occurrence
+     * @param series     The repeating event it belongs to
+     */
+    public void recordOccurrenceRemoved(Event occurrence, Event series) {
+        if (occurrence.getFirstDay() < series.getFirstDay() + SERIES_DAYS) {
+            record(EVENTS, occurrence.getFirstDay(), -1);
+        }
+    }
+
+    /**
+     * Returns the count of one kind of activity on a day.
+     *
+     * @param kind     TASKS, ASSIGNMENTS or EVENTS
+     * @param epochDay The day, as days since 1970-01-01
+     * @return The count, 0 for days with no activity
+     */
+    public synchronized int getCount(int kind, long epochDay) {
+        long i = epochDay - firstDay;
+        return i >= 0 && i < counts[kind].length ? counts[kind][(int) i] : 0;
+    }
+
+    /**
+     * Returns a number that changes whenever any count does.
+     *
+     * @return The current version of the counters
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts a batch of changes; the file is written once when the outermost batch commits.
+     */
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes, writing the file if anything changed.
+     */
+    public synchronized void commitBatch() {
+        if (batchDepth == 0 || --batchDepth > 0) return;
+        if (dirty) {
+            dirty = false;
+            save();
+        }
+    }
+
+    /**
+     * Grows the arrays so they include a day, doubling to keep growth rare.
+     */
+    private void ensureDay(long epochDay) {
+        int length = counts[0].length;
+        if (length == 0) {
+            firstDay = epochDay;
+            for (int k = 0; k < KINDS; k++) counts[k] = new int[366];
+            return;
+        }
+        if (epochDay >= firstDay && epochDay < firstDay + length) return;
+
+        long newFirst = Math.min(firstDay, epochDay);
+        long newEnd = Math.max(firstDay + length, epochDay + 1);
+        int newLength = (int) Math.max(newEnd - newFirst, 2L * length);
+        if (epochDay < firstDay) newFirst = newEnd - newLength; // Grow towards the past
+
+        int offset = (int) (firstDay - newFirst);
+        for (int k = 0; k < KINDS; k++) {
+            int[] grown = new int[newLength];
+            System.arraycopy(counts[k], 0, grown, offset, length);
+            counts[k] = grown;
+        }
+        firstDay = newFirst;
+    }
+
+    /**
+     * Counts every event already in the calendar. The month segments are
+     * read one at a time and not kept in the event store.
+     */
+    private void seedFromCalendar() {
+        batchDepth++; // The constructor saves once afterwards
+        try {
+            user.getEventStore().forEachStoredEvent(new CalendarEventStore.EventSink() {
+                public void event(Event event) {
+                    recordEvent(event, 1);
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            batchDepth--;
+            dirty = false;
+        }
+    }
+
+    /**
+     * Reads the counters file.
+     *
+     * @return false if there is no file or it cannot be read
+     */
+    private synchronized boolean load() {
+        File file = file();
+        if (!file.exists()) return false;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT) return false;
+            firstDay = in.readLong();
+            int length = in.readInt();
+            for (int k = 0; k < KINDS; k++) {
+                counts[k] = new int[length];
+                for (int i = 0; i < length; i++) counts[k][i] = in.readInt();
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            for (int k = 0; k < KINDS; k++) counts[k] = new int[0];
+            return false;
+        }
+    }
+
+    /**
+     * Writes the counters file.
+     */
+    private synchronized void save() {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file())))) {
+            out.writeInt(FORMAT);
+            out.writeLong(firstDay);
+            out.writeInt(counts[0].length);
+            for (int k = 0; k < KINDS; k++) {
+                for (int count : counts[k]) out.writeInt(count);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the counters file.
+     */
+    private File file() {
+        return new File(DataManager.getUserDir(user, "activity"), "counters.dat");
+    }
+}
@@ -0,0 +1,187 @@
+import greenfoot.*;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * ActivityPanel shows a year of the user's activity at a glance: one square
+ * per day for the past 53 weeks, shaded by how many tasks, assignments and
+ * events fell on that day, like a contribution graph, with yearly totals
+ * below it.
+ *
+ * Everything is drawn from {@link ActivityCounters} into the panel's single
+ * image. The last image drawn is kept and reused while the counters and the
+ * date are unchanged, so opening the page again does no drawing at all.
+ */
+public class ActivityPanel extends Actor {
+
+    private static final int WEEKS = 53;        // Columns in the heatmap
+    private static final int CELL = 7;          // Size of a day square
+    private static final int PITCH = 8;         // Distance between day squares
+    private static final int GRID_X = 38;       // Left edge of the heatmap
+    private static final int GRID_Y = 100;      // Top edge of the heatmap
+
+    /** Shades for 0, 1, 2-3, 4-6 and 7+ things on a day */
+    private static final greenfoot.Color[] LEVELS = {
+        new greenfoot.Color(235, 237, 240),
+        new greenfoot.Color(198, 219, 239),
+        new greenfoot.Color(107, 174, 214),
+        new greenfoot.Color(33, 113, 181),
+        new greenfoot.Color(8, 48, 107)
+    };
+
+    private static String cachedKey;            // User, counters version and date of the cached image
+    private static GreenfootImage cachedImage;  // The last panel image drawn
+
+    private User currentUser;                   // The user whose activity is shown
+    private int width, height;                  // Size of the panel
+
+    /**
+     * Constructs the activity panel.
+     *
+     * @param user The user whose activity is shown
+     * @param w    Width of the panel
+     * @param h    Height of the panel
+     */
+    public ActivityPanel(User user, int w, int h) {
+        currentUser = user;
+        width = w;
+        height = h;
+        updateImage();
+    }
+
+    /**
+     * Shows the heatmap, drawing it only if the counters or the date changed
+     * since it was last drawn.
+     */
+    public void updateImage() {
+        long start = Profiler.start();
+        ActivityCounters activity = currentUser.getActivity();
+        long today = LocalDate.now().toEpochDay();
+        String key = currentUser.getEmail() + "|" + activity.getVersion() + "|" + today + "|" + width + "x" + height;
+        if (!key.equals(cachedKey)) {
+            cachedImage = render(activity, today);
+            cachedKey = key;
+        }
+        setImage(cachedImage);
+        Profiler.stop(this, "updateImage", start);
+    }
+
+    /**
+     * Draws the title, heatmap, legend and totals.
+     */
+    private GreenfootImage render(ActivityCounters activity, long today) {
+        GreenfootImage img = new GreenfootImage(width, height);
+        img.setColor(new greenfoot.Color(255, 255, 255));
+        img.fill();
+        img.setColor(new greenfoot.Color(220, 220, 220));
+        img.drawRect(0, 0, width - 1, height - 1);
+
+        img.setFont(new Font("Arial", true, false, 22));
+        img.setColor(new greenfoot.Color(0, 0, 128));
+        img.drawString("Activity", 20, 38);
+
+        // Weeks start on Sunday, like the calendar; the last column holds today
+        long firstDay = today - (WEEKS - 1) * 7 - RecurrenceRule.weekday(today);
+        int[] totals = new int[ActivityCounters.KINDS];
+        int busiest = 0;
+        long busiestDay = today;
+
+        Font small = new Font("Arial", false, false, 10);
+        img.setFont(small);
+        for (int week = 0; week < WEEKS; week++) {
+            long weekStart = firstDay + week * 7;
+
+            // Month name above the first week of each month
+            LocalDate date = LocalDate.ofEpochDay(weekStart);
+            if (date.getDayOfMonth() <= 7 && week < WEEKS - 2) {
+                img.setColor(new greenfoot.Color(120, 120, 120));
+                img.drawString(date.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH), GRID_X + week * PITCH, GRID_Y - 5);
+            }
+
+            for (int row = 0; row < 7; row++) {
+                long day = weekStart + row;
+                if (day > today) break;
+
+                int total = 0;
+                for (int kind = 0; kind < ActivityCounters.KINDS; kind++) {
+                    int count = activity.getCount(kind, day);
+                    totals[kind] += count;
+                    total += count;
+                }
+                if (total > busiest) {
+                    busiest = total;
+                    busiestDay = day;
+                }
+                img.setColor(LEVELS[level(total)]);
+                img.fillRect(GRID_X + week * PITCH, GRID_Y + row * PITCH, CELL, CELL);
+            }
+        }
+
+        // Weekday labels and legend
+        img.setColor(new greenfoot.Color(120, 120, 120));
+        img.drawString("Mon", 10, GRID_Y + PITCH + CELL);
+        img.drawString("Wed", 10, GRID_Y + 3 * PITCH + CELL);
+        img.drawString("Fri", 10, GRID_Y + 5 * PITCH + CELL);
+        int legendX = GRID_X + WEEKS * PITCH - LEVELS.length * PITCH - 58;
+        int legendY = GRID_Y + 7 * PITCH + 12;
+        img.drawString("Less", legendX, legendY + CELL);
+        for (int i = 0; i < LEVELS.length; i++) {
+            img.setColor(LEVELS[i]);
+            img.fillRect(legendX + 26 + i * PITCH, legendY, CELL, CELL);
+        }
+        img.setColor(new greenfoot.Color(120, 120, 120));
+        img.drawString("More", legendX + 30 + LEVELS.length * PITCH, legendY + CELL);
+
+        // Totals for the year
+        img.setFont(new Font("Arial", false, false, 15));
+        img.setColor(new greenfoot.Color(0, 0, 0));
+        int y = GRID_Y + 7 * PITCH + 55;
+        img.drawString("Tasks completed: " + totals[ActivityCounters.TASKS], 20, y);
+        img.drawString("Assignments completed: " + totals[ActivityCounters.ASSIGNMENTS], 20, y + 26);
+        img.drawString("Events: " + totals[ActivityCounters.EVENTS], 20, y + 52);
+        img.drawString("Current streak: " + streak(activity, today) + " days", 260, y);
+        if (busiest > 0) {
+            LocalDate date = LocalDate.ofEpochDay(busiestDay);
+            img.drawString("Busiest day: " + date.getDayOfMonth() + " "
+                + date.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " (" + busiest + ")", 260, y + 26);
+        }
+        return img;
+    }
+
+    /**
+     * Returns how many days in a row, ending today or yesterday, had any activity.
+     */
+    private static int streak(ActivityCounters activity, long today) {
+        long day = today;
+        if (total(activity, day) == 0) day--; // Today may not have started yet
+        int days = 0;
+        while (days < WEEKS * 7 && total(activity, day) > 0) {
+            days++;
+            day--;
+        }
+        return days;
+    }
+
+    /**
+     * Returns the count of every kind of activity on a day.
+     */
+    private static int total(ActivityCounters activity, long day) {
+        int total = 0;
+        for (int kind = 0; kind < ActivityCounters.KINDS; kind++) {
+            total += activity.getCount(kind, day);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the shade index for a day's total.
+     */
+    private static int level(int total) {
+        if (total == 0) return 0;
+        if (total == 1) return 1;
+        if (total <= 3) return 2;
+        if (total <= 6) return 3;
+        return 4;
+    }
+}
@@ -12,6 +12,7 @@ public abstract class ButtonActor extends Actor {
     private int width, height;
     private int bgRed, bgGreen, bgBlue;
     private int textRed, textGreen, textBlue;
+    private InputDispatcher.Region clickRegion; // Set while an InputDispatcher delivers the clicks
 
     /**
      * Constructor for ButtonActor.
@@ -42,30 +43,56 @@ public abstract class ButtonActor extends Actor {
     }
 
     /**
-     * Creates the button image with the specified background color and text.
+     * Creates the button image with the specified background color and text,
+     * or reuses an identical button's image from {@link ImageCache}.
      */
     private void createImage() {
-        GreenfootImage img = new GreenfootImage(width, height);
+        String key = ImageCache.key("ButtonActor", text, textRed, textGreen, textBlue, bgRed, bgGreen, bgBlue, width, height);
+        setImage(ImageCache.get(key, new ImageCache.Renderer() {
+            public GreenfootImage render() {
+                GreenfootImage img = new GreenfootImage(width, height);
 
-        // Fill background
-        img.setColor(new greenfoot.Color(bgRed, bgGreen, bgBlue));
-        img.fill();
+                // Fill background
+                img.setColor(new greenfoot.Color(bgRed, bgGreen, bgBlue));
+                img.fill();
 
-        // Draw text label
-        img.setColor(new greenfoot.Color(textRed, textGreen, textBlue));
-        img.drawString(text, 10, height / 2 + 5); // slightly offset vertically
-        setImage(img);
+                // Draw text label
+                img.setColor(new greenfoot.Color(textRed, textGreen, textBlue));
+                img.drawString(text, 10, height / 2 + 5); // slightly offset vertically
+                return img;
+            }
+        }));
     }
 
     /**
-     * Act method checks for mouse clicks and triggers the onClick behavior.
-     * Plays a click sound when pressed.
+     * Registers the button with the world's InputDispatcher, if it has one.
+     */
+    protected void addedToWorld(World world) {
+        clickRegion = InputDispatcher.attach(this, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                click();
+            }
+        });
+    }
+
+    /**
+     * Act method checks for mouse clicks and triggers the onClick behavior,
+     * unless an InputDispatcher delivers the clicks.
      */
     public void act() {
-        if (Greenfoot.mouseClicked(this)) {
-            playSound("button-1.wav");
-            onClick();
+        long start = Profiler.start();
+        if (clickRegion == null && Greenfoot.mouseClicked(this)) {
+            click();
         }
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Plays a click sound and triggers the onClick behavior.
+     */
+    private void click() {
+        playSound("button-1.wav");
+        onClick();
     }
 
     /**
@@ -1,123 +1,391 @@
 import greenfoot.*;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * CalendarDay represents a single day in a calendar UI with optional events.
  * It displays the day number and highlights today. Clicking the day opens an EventPopup
- * to view or manage events for that day.
+ * to view or manage events for that day. Events are read from the user's
+ * CalendarEventStore, so they survive page switches and month navigation.
+ * Events spanning several days are drawn as a bar running across the cells,
+ * and a red marker shows when timed events on this day overlap.
+ * CalendarPanel keeps a fixed pool of these cells and rebinds them to new
+ * dates when the month changes; a cell outside the month is blank (day 0).
+ * Drawing is done by the static {@link #draw} into a plain AWT image, so
+ * neighbouring months can be drawn ahead of time by {@link CalendarPrefetcher}.
+ * Events are color-coded by calendar (School, Personal, Work). The cell keeps
+ * the day's events from its last query, so hiding or showing a calendar is a
+ * bitmask filter over that list rather than a new query.
  */
 public class CalendarDay extends Actor {
 
-    private int day;                      // Numeric day of the month
+    /** Width and height of a CalendarDay box */
+    private static final int CELL_W = 68, CELL_H = 65;
+
+    /** Image shown by cells outside the current month */
+    static final GreenfootImage BLANK = new GreenfootImage(CELL_W, CELL_H);
+
+    private static final Font DAY_FONT = new Font("Arial", false, false, 14);   // Day number
+    private static final Font EVENT_FONT = new Font("Arial", false, false, 9);  // First event and "+n more"
+
+    private int day;                      // Numeric day of the month, 0 for a blank cell
+    private long epochDay;                // The full date, as days since 1970-01-01
     private User currentUser;             // The user owning this calendar
-    private ArrayList<String> events = new ArrayList<>(); // List of events for this day
+    private CalendarPanel parentPanel;    // The panel containing this day
     private boolean isToday;              // Whether this day is the current day
-    private int w = 68, h = 65;           // Width and height of the CalendarDay box
     private EventPopup popup;             // Popup displayed when clicked
+    private InputDispatcher.Region clickRegion; // Set while an InputDispatcher delivers the clicks
+    private String renderedContent;       // What the current image shows, to skip redundant redraws
+    private List<Event> events = Collections.emptyList(); // The day's events in every calendar, from the last query
+    private int eventCategories;          // Category bits of those events
 
     /**
      * Constructor for CalendarDay.
      *
-     * @param day         The numeric day of the month
+     * @param day         The numeric day of the month, or 0 for a blank cell
+     * @param epochDay    The full date, as days since 1970-01-01
      * @param currentUser The user owning this calendar
+     * @param parentPanel The CalendarPanel containing this day
      * @param isToday     Whether this day is today (highlighted)
      */
-    public CalendarDay(int day, User currentUser, boolean isToday) {
+    public CalendarDay(int day, long epochDay, User currentUser, CalendarPanel parentPanel, boolean isToday) {
         this.day = day;
+        this.epochDay = epochDay;
         this.currentUser = currentUser;
+        this.parentPanel = parentPanel;
         this.isToday = isToday;
         updateImage();
     }
 
     /**
-     * Act method handles mouse clicks on this CalendarDay.
-     * Clicking opens an EventPopup in the center of the world and removes any previous popup.
+     * Registers the cell with the world's InputDispatcher, if it has one.
      */
-    public void act() {
-        if (Greenfoot.mouseClicked(this)) {
-            World world = getWorld();
-            if (world != null) {
-                // Remove existing popups
-                for (EventPopup p : world.getObjects(EventPopup.class)) {
-                    world.removeObject(p);
-                }
-
-                // Create new popup for this day
-                popup = new EventPopup(day, events, this);
-                world.addObject(popup, world.getWidth() / 2, world.getHeight() / 2);
-                playSound("click.wav");
+    protected void addedToWorld(World world) {
+        clickRegion = InputDispatcher.attach(this, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                openPopup();
             }
+        });
+    }
+
+    /**
+     * Act method handles mouse clicks on this CalendarDay, unless an
+     * InputDispatcher delivers the clicks.
+     */
+    public void act() {
+        long start = Profiler.start();
+        if (clickRegion == null && Greenfoot.mouseClicked(this)) {
+            openPopup();
+        }
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Opens an EventPopup for this day in the center of the world. While it
+     * is open its overlay blocks clicks on other days. Blank cells do nothing.
+     */
+    private void openPopup() {
+        World world = getWorld();
+        if (day > 0 && world != null) {
+            popup = new EventPopup(day, this);
+            popup.open(world);
+            playSound("click.wav");
         }
     }
 
     /**
-     * Adds a new event to this day and updates the display.
+     * Rebinds this cell to another date, e.g. when the calendar changes month.
+     * The image is only redrawn if what the cell shows actually changed.
      *
-     * @param event The event name to add
+     * @param day      The numeric day of the month, or 0 for a blank cell
+     * @param epochDay The full date, as days since 1970-01-01
+     * @param isToday  Whether this day is today (highlighted)
      */
-    public void addEvent(String event) {
-        events.add(event);
+    public void bind(int day, long epochDay, boolean isToday) {
+        this.day = day;
+        this.epochDay = epochDay;
+        this.isToday = isToday;
         updateImage();
     }
 
     /**
-     * Removes an event from this day and updates the display.
+     * Rebinds this cell to another date using an image prepared in advance
+     * by {@link #render}, e.g. by the calendar's background prefetch.
      *
-     * @param event The event name to remove
+     * @param day      The numeric day of the month, or 0 for a blank cell
+     * @param epochDay The full date, as days since 1970-01-01
+     * @param isToday  Whether this day is today (highlighted)
+     * @param events   The day's events in every calendar
+     * @param content  The {@link #describe} key the image was rendered for
+     * @param image    The prepared image
      */
-    public void removeEvent(String event) {
-        events.remove(event);
-        updateImage();
+    public void show(int day, long epochDay, boolean isToday, List<Event> events, String content, GreenfootImage image) {
+        this.day = day;
+        this.epochDay = epochDay;
+        this.isToday = isToday;
+        this.events = events;
+        this.eventCategories = categoriesOf(events);
+        if (content.equals(renderedContent)) return;
+        renderedContent = content;
+        setImage(image);
+    }
+
+    /**
+     * Adds a new event and updates every visible day it covers.
+     *
+     * @param event The event to add
+     */
+    public void addEvent(Event event) {
+        currentUser.getEventStore().addEvent(event);
+        refreshDays(event);
+    }
+
+    /**
+     * Removes an event and updates every visible day it covered.
+     *
+     * @param event The event to remove
+     */
+    public void removeEvent(Event event) {
+        currentUser.getEventStore().removeEvent(event);
+        refreshDays(event);
+    }
+
+    /**
+     * Removes a single occurrence of a recurring event, keeping the rest of the series.
+     *
+     * @param occurrence The occurrence to remove
+     */
+    public void removeOccurrence(Event occurrence) {
+        currentUser.getEventStore().removeOccurrence(occurrence);
+        refreshDays(occurrence);
+    }
+
+    /**
+     * Has the parent panel redraw the days an event covers, or every shown
+     * day for a change to a whole recurring series. The panel decides how:
+     * this cell may not even be in the world (the week and day views open
+     * popups through cells of their own).
+     */
+    private void refreshDays(Event event) {
+        if (parentPanel == null) {
+            updateImage();
+        } else if (event.isRecurring()) {
+            parentPanel.refreshDays(Long.MIN_VALUE, Long.MAX_VALUE);
+        } else {
+            parentPanel.refreshDays(event.getFirstDay(), event.getLastDay());
+        }
     }
 
     /**
      * Updates the visual representation of this CalendarDay.
      * Highlights today, displays the day number, shows the first event,
      * and indicates the number of additional events.
+     * Nothing is drawn if the cell would look the same as it already does.
+     */
+    public void updateImage() {
+        long start = Profiler.start();
+        events = day > 0 ? getEvents() : Collections.<Event>emptyList();
+        eventCategories = categoriesOf(events);
+        redraw();
+        Profiler.stop(this, "updateImage", start);
+    }
+
+    /**
+     * Redraws the cell after calendars were hidden or shown, using the events
+     * it already has. Cells without events in those calendars are left alone.
+     *
+     * @param changedCategories Category bits whose visibility changed
+     */
+    public void applyFilter(int changedCategories) {
+        if ((eventCategories & changedCategories) != 0) redraw();
+    }
+
+    /**
+     * Draws the cached events of the visible calendars, if that changes the picture.
+     */
+    private void redraw() {
+        int visible = parentPanel != null ? parentPanel.getVisibleCategories() : Event.ALL_CATEGORIES;
+        List<Event> shown = filter(events, visible);
+        String content = describe(day, epochDay, isToday, shown);
+        if (content.equals(renderedContent)) return;
+        renderedContent = content;
+        setImage(render(day, epochDay, isToday, shown));
+    }
+
+    /**
+     * Returns the events belonging to any of the given calendars.
+     *
+     * @param events Events in start order
+     * @param mask   Category bits of the calendars to keep
+     * @return The matching events, still in start order (the list itself if all match)
+     */
+    static List<Event> filter(List<Event> events, int mask) {
+        if (mask == Event.ALL_CATEGORIES) return events;
+
+        ArrayList<Event> shown = new ArrayList<>();
+        for (Event event : events) {
+            if (event.inCategories(mask)) shown.add(event);
+        }
+        return shown;
+    }
+
+    /**
+     * Returns the union of the category bits of some events.
+     */
+    private static int categoriesOf(List<Event> events) {
+        int categories = 0;
+        for (Event event : events) {
+            categories |= event.getCategories();
+        }
+        return categories;
+    }
+
+    /**
+     * Returns the color a calendar is drawn in; for an event in several
+     * calendars, the color of the first (School, then Personal, then Work).
+     *
+     * @param categories Category bits
+     * @return The calendar's color
      */
-    private void updateImage() {
-        GreenfootImage img = new GreenfootImage(w, h);
+    static greenfoot.Color categoryColor(int categories) {
+        if ((categories & Event.SCHOOL) != 0) return new greenfoot.Color(30, 110, 200);
+        if ((categories & Event.WORK) != 0 && (categories & Event.PERSONAL) == 0) return new greenfoot.Color(200, 100, 0);
+        return new greenfoot.Color(0, 0, 128);
+    }
+
+    /**
+     * Draws a cell. Must be called on the Greenfoot thread; the drawing
+     * itself is done by {@link #draw}, which the prefetch thread uses directly.
+     *
+     * @param day      The numeric day of the month, or 0 for a blank cell
+     * @param epochDay The full date, as days since 1970-01-01
+     * @param isToday  Whether this day is today (highlighted)
+     * @param events   The events on that day, ordered by start time
+     * @return The cell's image
+     */
+    static GreenfootImage render(int day, long epochDay, boolean isToday, List<Event> events) {
+        if (day == 0) return BLANK;
+        return RenderPool.toGreenfootImage(draw(day, epochDay, isToday, events));
+    }
+
+    /**
+     * Draws a cell of the month into a plain AWT image. Uses no actor state
+     * and no GreenfootImage, so it can run on a background thread.
+     *
+     * @param day      The numeric day of the month (not a blank cell)
+     * @param epochDay The full date, as days since 1970-01-01
+     * @param isToday  Whether this day is today (highlighted)
+     * @param events   The events on that day, ordered by start time
+     * @return The cell's image
+     */
+    static BufferedImage draw(int day, long epochDay, boolean isToday, List<Event> events) {
+        int w = CELL_W, h = CELL_H;
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = RenderPool.graphics(img);
 
         // Background color: light blue if today, white otherwise
-        img.setColor(isToday ? new greenfoot.Color(225, 235, 255) : new greenfoot.Color(255, 255, 255));
-        img.fill();
+        g.setColor(isToday ? new java.awt.Color(225, 235, 255) : new java.awt.Color(255, 255, 255));
+        g.fillRect(0, 0, w, h);
 
         // Border for hover effect
-        img.setColor(new greenfoot.Color(230, 230, 230));
-        img.drawRect(0, 0, w - 1, h - 1);
+        g.setColor(new java.awt.Color(230, 230, 230));
+        g.drawRect(0, 0, w - 1, h - 1);
 
         // Day number
-        img.setFont(new Font("Arial", false, false, 14));
+        g.setFont(TextLayout.toAwtFont(DAY_FONT));
         if (isToday) {
-            img.setColor(new greenfoot.Color(0, 0, 128));
-            img.fillOval(w / 2 - 12, 5, 24, 24); // highlight circle
-            img.setColor(new greenfoot.Color(255, 255, 255));
+            g.setColor(new java.awt.Color(0, 0, 128));
+            g.fillOval(w / 2 - 12, 5, 24, 24); // highlight circle
+            g.setColor(new java.awt.Color(255, 255, 255));
         } else {
-            img.setColor(new greenfoot.Color(60, 60, 60));
+            g.setColor(new java.awt.Color(60, 60, 60));
         }
         String dayStr = "" + day;
-        int textWidth = img.getFont().getSize() * dayStr.length() / 2;
-        img.drawString(dayStr, w / 2 - textWidth, 20);
+        int textWidth = DAY_FONT.getSize() * dayStr.length() / 2;
+        g.drawString(dayStr, w / 2 - textWidth, 20);
 
         // Display first event if available
         if (!events.isEmpty()) {
-            img.setColor(new greenfoot.Color(0, 0, 128));
-            img.setFont(new Font("Arial", false, false, 9));
+            g.setFont(TextLayout.toAwtFont(EVENT_FONT));
+            Event first = events.get(0);
+
+            java.awt.Color color = RenderPool.toAwtColor(categoryColor(first.getCategories()));
 
-            String firstEvent = events.get(0);
-            if (firstEvent.length() > 9) {
-                firstEvent = firstEvent.substring(0, 9) + "..";
+            // Spanning events draw as a bar that runs into the neighbouring cells
+            if (first.isMultiDay()) {
+                int left = first.getFirstDay() == epochDay ? 2 : 0;
+                int right = first.getLastDay() == epochDay ? w - 2 : w;
+                g.setColor(new java.awt.Color(color.getRed(), color.getGreen(), color.getBlue(), 50));
+                g.fillRect(left, 26, right - left, 12);
             }
-            img.drawString(firstEvent, 3, 35);
+
+            g.setColor(color);
+            g.drawString(TextLayout.ellipsize(first.getName(), EVENT_FONT, w - 6), 3, 35);
 
             // Show count of additional events
             if (events.size() > 1) {
-                img.setColor(new greenfoot.Color(100, 100, 100));
-                img.drawString("+" + (events.size() - 1) + " more", 3, 45);
+                g.setColor(new java.awt.Color(100, 100, 100));
+                g.drawString("+" + (events.size() - 1) + " more", 3, 45);
+            }
+
+            // Red marker when timed events overlap
+            if (hasConflict(events)) {
+                g.setColor(new java.awt.Color(200, 0, 0));
+                g.fillOval(w - 12, 4, 8, 8);
+            }
+
+            // One chip per calendar with events on this day, left of the conflict marker
+            int categories = categoriesOf(events);
+            int chipX = w - 22;
+            for (int bit = Event.WORK; bit >= Event.SCHOOL; bit >>= 1) {
+                if ((categories & bit) == 0) continue;
+                g.setColor(RenderPool.toAwtColor(categoryColor(bit)));
+                g.fillRect(chipX, 5, 6, 6);
+                chipX -= 9;
             }
         }
 
-        setImage(img);
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Summarizes everything the cell's image depends on, so two binds that
+     * would draw the same picture can be detected without drawing.
+     *
+     * @param day      The numeric day of the month, or 0 for a blank cell
+     * @param epochDay The full date, as days since 1970-01-01
+     * @param isToday  Whether this day is today
+     * @param events   The events on that day
+     * @return A string describing the cell's content
+     */
+    static String describe(int day, long epochDay, boolean isToday, List<Event> events) {
+        if (day == 0) return "";
+        if (events.isEmpty()) return day + (isToday ? "T" : "");
+
+        Event first = events.get(0);
+        return day + (isToday ? "T" : "") + "|" + first.getName() + "|" + first.getCategories() + "/" + categoriesOf(events)
+            + "|" + (first.isMultiDay() ? (first.getFirstDay() == epochDay ? "<" : "-") + (first.getLastDay() == epochDay ? ">" : "-") : "")
+            + "|" + events.size() + (hasConflict(events) ? "!" : "");
+    }
+
+    /**
+     * Checks whether any two timed events in a start-ordered list overlap.
+     *
+     * @param events Events ordered by start time
+     * @return true if at least two timed events overlap
+     */
+    private static boolean hasConflict(List<Event> events) {
+        long latestEnd = Long.MIN_VALUE;
+        for (Event event : events) {
+            if (event.isAllDay()) continue;
+            if (event.getStart() < latestEnd) return true;
+            latestEnd = Math.max(latestEnd, event.getEnd());
+        }
+        return false;
     }
 
     /**
@@ -135,12 +403,30 @@ public class CalendarDay extends Actor {
     }
 
     /**
-     * Returns the list of events for this day.
+     * Returns the list of events for this day, in every calendar.
+     *
+     * @return Events overlapping this day, ordered by start time
+     */
+    public List<Event> getEvents() {
+        return currentUser.getEventStore().getEventsOn(epochDay);
+    }
+
+    /**
+     * Returns the date of this day.
+     *
+     * @return Days since 1970-01-01
+     */
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * Returns the user owning this calendar.
      *
-     * @return ArrayList of event names
+     * @return The user
      */
-    public ArrayList<String> getEvents() {
-        return events;
+    public User getUser() {
+        return currentUser;
     }
 }
 
@@ -0,0 +1,480 @@
+import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * CalendarEventStore keeps a user's calendar events and answers
+ * "which events overlap this time window" queries.
+ *
+ * Events are stored on disk in one segment file per month. An event that
+ * spans several months is written to each of them (it is a small record),
+ * so showing a month only reads that month's segment. Loaded events are
+ * indexed in an {@link IntervalTree}, making month, day and hour queries
+ * O(log n + k). Segments are loaded on first use and written back whenever
+ * an event overlapping them changes.
+ *
+ * Recurring events are stored once, with their {@link RecurrenceRule}, in a
+ * separate file. Their occurrences are generated only for the months being
+ * shown and cached per month; any change to a recurring event clears that cache.
+ *
+ * Bulk changes (e.g. an .ics import) can be wrapped in {@link #beginBatch()}
+ * and {@link #commitBatch()} so each touched file is written once at the end
+ * instead of after every event. Adding and removing events also updates the
+ * user's {@link ActivityCounters}, batched the same way.
+ *
+ * All public methods are synchronized, so the calendar can read the store
+ * from a background thread while the Greenfoot thread changes it.
+ * {@link #getVersion()} changes whenever the events do, so work done on an
+ * older version can be recognised as stale.
+ */
+public class CalendarEventStore {
+
+    /**
+     * Receives events from {@link #forEachStoredEvent}.
+     */
+    public interface EventSink {
+        void event(Event event) throws IOException;
+    }
+
+    private User user;                                  // Owner of the events
+    private IntervalTree index = new IntervalTree();    // Loaded events by time range
+    private HashMap<Long, Event> eventsById = new HashMap<>(); // Loaded events by id (spanning events appear in several segments)
+    private HashSet<Integer> loadedMonths = new HashSet<>();   // Month keys whose segment has been read
+    private long lastId;                                // Last id handed out
+    private ArrayList<Event> recurring;                 // Recurring events (null until read)
+    private int batchDepth;                             // > 0 while a batch defers writes
+    private HashSet<Integer> dirtyMonths = new HashSet<>();    // Segments changed during the batch
+    private boolean recurringDirty;                     // Recurring file changed during the batch
+    private long version;                               // Incremented on every change to the events
+    private Map<Integer, List<Event>> occurrences = new LinkedHashMap<Integer, List<Event>>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Event>> eldest) {
+            return size() > OCCURRENCE_MONTHS;
+        }
+    };                                                  // Generated occurrences by month key, least recently used first
+
+    /** Number of months whose generated occurrences are kept */
+    private static final int OCCURRENCE_MONTHS = 24;
+
+    /** Orders events by start time, then id */
+    private static final Comparator<Event> BY_START = new Comparator<Event>() {
+        public int compare(Event a, Event b) {
+            if (a.getStart() != b.getStart()) return a.getStart() < b.getStart() ? -1 : 1;
+            return Long.compare(a.getId(), b.getId());
+        }
+    };
+
+    /**
+     * Constructs an event store for a user. Nothing is read until a month is requested.
+     *
+     * @param user The user owning the events
+     */
+    public CalendarEventStore(User user) {
+        this.user = user;
+    }
+
+    /**
+     * Returns all events overlapping the window [from, to), ordered by start time.
+     *
+     * @param from Start of the window in minutes (inclusive)
+     * @param to   End of the window in minutes (exclusive)
+     * @return List of overlapping events
+     */
+    public synchronized List<Event> getEvents(long from, long to) {
+        ensureLoaded(from, to);
+        List<Event> events = index.query(from, to);
+
+        int first = monthKey(Math.floorDiv(from, Event.MINUTES_PER_DAY));
+        int last = monthKey(Math.floorDiv(to - 1, Event.MINUTES_PER_DAY));
+        boolean added = false;
+        for (int key = first; key <= last; key++) {
+            long monthStart = monthStartDay(key) * Event.MINUTES_PER_DAY;
+            for (Event occurrence : getOccurrences(key)) {
+                // An occurrence running into this month was already taken from the previous one
+                if (key > first && occurrence.getStart() < monthStart) continue;
+                if (occurrence.getStart() < to && occurrence.getEnd() > from) {
+                    events.add(occurrence);
+                    added = true;
+                }
+            }
+        }
+        if (added) Collections.sort(events, BY_START);
+        return events;
+    }
+
+    /**
+     * Returns the events on a given day, ordered by start time.
+     *
+     * @param epochDay The day, as days since 1970-01-01
+     * @return List of events overlapping that day
+     */
+    public synchronized List<Event> getEventsOn(long epochDay) {
+        return getEvents(epochDay * Event.MINUTES_PER_DAY, (epochDay + 1) * Event.MINUTES_PER_DAY);
+    }
+
+    /**
+     * Returns the timed events that overlap an event's time range.
+     * All-day events are not treated as conflicts.
+     *
+     * @param event The event to check
+     * @return Other timed events overlapping it
+     */
+    public synchronized List<Event> getConflicts(Event event) {
+        ArrayList<Event> conflicts = new ArrayList<>();
+        if (event.isAllDay()) return conflicts;
+
+        for (Event other : getEvents(event.getStart(), event.getEnd())) {
+            if (other.getId() != event.getId() && !other.isAllDay()) conflicts.add(other);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Adds an event, giving it an id, and saves every month segment it overlaps.
+     *
+     * @param event The event to add
+     */
+    public synchronized void addEvent(Event event) {
+        // Counted before the event is stored, so counters first created by this call do not seed it too
+        user.getActivity().recordEvent(event, 1);
+        if (event.isRecurring()) {
+            ensureRecurringLoaded();
+            event.setId(nextId());
+            recurring.add(event);
+            recurringChanged();
+            return;
+        }
+
+        ensureLoaded(event.getStart(), event.getEnd());
+        event.setId(nextId());
+        eventsById.put(event.getId(), event);
+        index.insert(event);
+        saveMonths(event.getStart(), event.getEnd());
+    }
+
+    /**
+     * Removes an event and saves every month segment it overlapped.
+     * Removing a recurring event or one of its occurrences removes the whole series.
+     *
+     * @param event The event to remove
+     */
+    public synchronized void removeEvent(Event event) {
+        if (event.isRecurring()) {
+            Event series = findSeries(event);
+            if (series != null) {
+                user.getActivity().recordEvent(series, -1);
+                recurring.remove(series);
+                recurringChanged();
+            }
+            return;
+        }
+
+        ensureLoaded(event.getStart(), event.getEnd());
+        if (eventsById.containsKey(event.getId())) {
+            user.getActivity().recordEvent(event, -1);
+            eventsById.remove(event.getId());
+            index.remove(event);
+            saveMonths(event.getStart(), event.getEnd());
+        }
+    }
+
+    /**
+     * Passes every stored event to a sink: all one-off events ordered by
+     * start time, then each recurring event once (as its first occurrence
+     * with its rule). Segments that are not loaded are read one at a time
+     * and dropped again, so memory use does not grow with the calendar.
+     *
+     * @param sink Receives the events
+     * @throws IOException If the sink throws it
+     */
+    public synchronized void forEachStoredEvent(EventSink sink) throws IOException {
+        TreeSet<Integer> months = new TreeSet<>(loadedMonths);
+        File[] files = DataManager.getUserDir(user, "calendar").listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (!name.matches("\\d{4}-\\d{2}\\.seg")) continue;
+                months.add(Integer.parseInt(name.substring(0, 4)) * 12 + Integer.parseInt(name.substring(5, 7)) - 1);
+            }
+        }
+
+        for (int key : months) {
+            List<Event> events;
+            if (loadedMonths.contains(key)) {
+                events = index.query(monthStartDay(key) * Event.MINUTES_PER_DAY, monthStartDay(key + 1) * Event.MINUTES_PER_DAY);
+            } else {
+                events = readSegment(key);
+                Collections.sort(events, BY_START);
+            }
+            for (Event event : events) {
+                // A spanning event is in every month it overlaps; pass it on from its first one
+                if (monthKey(event.getFirstDay()) == key) sink.event(event);
+            }
+        }
+
+        ensureRecurringLoaded();
+        for (Event series : recurring) {
+            sink.event(series);
+        }
+    }
+
+    /**
+     * Returns a number that changes whenever any event is added, removed or changed.
+     *
+     * @return The current version of the events
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #commitBatch()},
+     * adding or removing events only updates memory and notes which files changed.
+     * Batches may be nested; files are written when the outermost one commits.
+     */
+    public synchronized void beginBatch() {
+        user.getActivity().beginBatch();
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes, writing every file changed since
+     * {@link #beginBatch()} once.
+     */
+    public synchronized void commitBatch() {
+        if (batchDepth == 0) return;
+        user.getActivity().commitBatch();
+        if (--batchDepth > 0) return;
+
+        for (int key : dirtyMonths) {
+            saveSegment(key);
+        }
+        dirtyMonths.clear();
+        if (recurringDirty) {
+            recurringDirty = false;
+            recurringChanged();
+        }
+    }
+
+    /**
+     * Removes a single occurrence of a recurring event by adding an exception
+     * for its day to the series' rule. The rest of the series is kept.
+     *
+     * @param occurrence An occurrence returned by {@link #getEvents}
+     */
+    public synchronized void removeOccurrence(Event occurrence) {
+        Event series = findSeries(occurrence);
+        if (series == null) return;
+
+        user.getActivity().recordOccurrenceRemoved(occurrence, series);
+        series.getRule().addException(occurrence.getFirstDay());
+        recurringChanged();
+    }
+
+    /**
+     * Returns the stored recurring event an event or occurrence belongs to, or null.
+     */
+    private Event findSeries(Event event) {
+        ensureRecurringLoaded();
+        for (Event series : recurring) {
+            if (series.getId() == event.getId()) return series;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the occurrences of all recurring events that overlap a month,
+     * ordered by start time, generating them if they are not cached.
+     */
+    private List<Event> getOccurrences(int monthKey) {
+        List<Event> cached = occurrences.get(monthKey);
+        if (cached != null) return cached;
+
+        ensureRecurringLoaded();
+        final ArrayList<Event> result = new ArrayList<>();
+        long firstDay = monthStartDay(monthKey);
+        long lastDay = monthStartDay(monthKey + 1) - 1;
+        for (final Event series : recurring) {
+            // Start early enough to catch occurrences running into the month
+            long span = series.getLastDay() - series.getFirstDay();
+            series.getRule().expand(series.getFirstDay(), firstDay - span, lastDay, new RecurrenceRule.OccurrenceSink() {
+                public void occurrence(long epochDay) {
+                    result.add(series.occurrenceOn(epochDay));
+                }
+            });
+        }
+        Collections.sort(result, BY_START);
+        occurrences.put(monthKey, result);
+        return result;
+    }
+
+    /**
+     * Reads the recurring events file on first use.
+     */
+    @SuppressWarnings("unchecked")
+    private void ensureRecurringLoaded() {
+        if (recurring != null) return;
+
+        recurring = new ArrayList<>();
+        File file = recurringFile();
+        if (!file.exists()) return;
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            recurring = (ArrayList<Event>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+        for (Event series : recurring) {
+            lastId = Math.max(lastId, series.getId());
+        }
+    }
+
+    /**
+     * Writes the recurring events file and drops the generated occurrences.
+     */
+    private void recurringChanged() {
+        version++;
+        occurrences.clear();
+        if (batchDepth > 0) {
+            recurringDirty = true;
+            return;
+        }
+
+        File file = recurringFile();
+        if (recurring.isEmpty()) {
+            file.delete();
+            return;
+        }
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(recurring);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns a new unique id. Ids are based on the clock so they stay unique
+     * across sessions without a stored counter.
+     */
+    private long nextId() {
+        lastId = Math.max(System.currentTimeMillis() << 12, lastId + 1);
+        return lastId;
+    }
+
+    /**
+     * Makes sure every month segment overlapping [from, to) has been read.
+     */
+    private void ensureLoaded(long from, long to) {
+        int first = monthKey(Math.floorDiv(from, Event.MINUTES_PER_DAY));
+        int last = monthKey(Math.floorDiv(to - 1, Event.MINUTES_PER_DAY));
+        for (int key = first; key <= last; key++) {
+            if (loadedMonths.add(key)) loadSegment(key);
+        }
+    }
+
+    /**
+     * Reads a month segment from disk into the index.
+     * Events already loaded from another month's segment are skipped.
+     */
+    private void loadSegment(int monthKey) {
+        for (Event event : readSegment(monthKey)) {
+            if (!eventsById.containsKey(event.getId())) {
+                eventsById.put(event.getId(), event);
+                index.insert(event);
+                lastId = Math.max(lastId, event.getId());
+            }
+        }
+    }
+
+    /**
+     * Reads the events in a month's segment file, or returns an empty list if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    private ArrayList<Event> readSegment(int monthKey) {
+        File file = segmentFile(monthKey);
+        if (!file.exists()) return new ArrayList<>();
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (ArrayList<Event>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Writes every month segment overlapping [from, to).
+     */
+    private void saveMonths(long from, long to) {
+        version++;
+        int first = monthKey(Math.floorDiv(from, Event.MINUTES_PER_DAY));
+        int last = monthKey(Math.floorDiv(to - 1, Event.MINUTES_PER_DAY));
+        for (int key = first; key <= last; key++) {
+            if (batchDepth > 0) {
+                dirtyMonths.add(key);
+            } else {
+                saveSegment(key);
+            }
+        }
+    }
+
+    /**
+     * Writes the events overlapping a month to its segment file,
+     * deleting the file if the month has no events.
+     */
+    private void saveSegment(int monthKey) {
+        long from = monthStartDay(monthKey) * Event.MINUTES_PER_DAY;
+        long to = monthStartDay(monthKey + 1) * Event.MINUTES_PER_DAY;
+        ArrayList<Event> events = new ArrayList<>(index.query(from, to));
+
+        File file = segmentFile(monthKey);
+        if (events.isEmpty()) {
+            file.delete();
+            return;
+        }
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(events);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the segment file for a month, e.g. 2025-03.seg.
+     */
+    private File segmentFile(int monthKey) {
+        String name = String.format("%04d-%02d.seg", monthKey / 12, monthKey % 12 + 1);
+        return new File(DataManager.getUserDir(user, "calendar"), name);
+    }
+
+    /**
+     * Returns the file holding the user's recurring events.
+     */
+    private File recurringFile() {
+        return new File(DataManager.getUserDir(user, "calendar"), "recurring.dat");
+    }
+
+    /**
+     * Returns the first day of a month key, as days since 1970-01-01.
+     */
+    private static long monthStartDay(int monthKey) {
+        return LocalDate.of(monthKey / 12, monthKey % 12 + 1, 1).toEpochDay();
+    }
+
+    /**
+     * Returns a key identifying the month containing a day (year * 12 + month index).
+     */
+    private static int monthKey(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+}
@@ -1,44 +1,66 @@
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Represents a specific month in a calendar, 
  * providing utility methods to navigate months and get month information.
+ * Months are immutable java.time values; the layout of each month is
+ * computed once and cached as a {@link MonthGrid}, so navigating back and
+ * forth does no calendar arithmetic. Each grid remembers the date it was
+ * computed for, and a grid from an earlier date is rebuilt when it is next
+ * asked for.
  */
 public class CalendarMonth {
-    private int month; // 0-11 (January = 0)
-    private int year;
-    private Calendar calendar;
+
+    /** Maximum number of month grids kept in the cache */
+    private static final int MAX_CACHED_GRIDS = 120;
+
+    /** Cached month grids, evicted least-recently-used */
+    private static final LinkedHashMap<YearMonth, MonthGrid> grids =
+        new LinkedHashMap<YearMonth, MonthGrid>(32, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, MonthGrid> eldest) {
+                return size() > MAX_CACHED_GRIDS;
+            }
+        };
+
+    private YearMonth yearMonth; // The month currently shown
+    private MonthGrid grid;      // Cached layout of that month
 
     /**
      * Constructs a CalendarMonth initialized to the current month and year.
      */
     public CalendarMonth() {
-        calendar = new GregorianCalendar();
-        month = calendar.get(Calendar.MONTH);
-        year = calendar.get(Calendar.YEAR);
+        setMonth(YearMonth.now());
     }
 
     /**
      * Moves to the next month. Increments the year if December is exceeded.
      */
     public void nextMonth() {
-        month++;
-        if (month > 11) {
-            month = 0;
-            year++;
-        }
+        setMonth(yearMonth.plusMonths(1));
     }
 
     /**
      * Moves to the previous month. Decrements the year if January is exceeded.
      */
     public void prevMonth() {
-        month--;
-        if (month < 0) {
-            month = 11;
-            year--;
-        }
+        setMonth(yearMonth.minusMonths(1));
+    }
+
+    /**
+     * Moves to the same month of the next year.
+     */
+    public void nextYear() {
+        setMonth(yearMonth.plusYears(1));
+    }
+
+    /**
+     * Moves to the same month of the previous year.
+     */
+    public void prevYear() {
+        setMonth(yearMonth.minusYears(1));
     }
 
     /**
@@ -47,9 +69,7 @@ public class CalendarMonth {
      * @return The month name (e.g., "January")
      */
     public String getMonthName() {
-        String[] months = {"January", "February", "March", "April", "May", "June",
-                           "July", "August", "September", "October", "November", "December"};
-        return months[month];
+        return grid.getMonthName();
     }
 
     /**
@@ -58,7 +78,7 @@ public class CalendarMonth {
      * @return The year (e.g., 2025)
      */
     public int getYear() { 
-        return year; 
+        return yearMonth.getYear(); 
     }
 
     /**
@@ -67,7 +87,7 @@ public class CalendarMonth {
      * @return Month index
      */
     public int getMonth() { 
-        return month; 
+        return yearMonth.getMonthValue() - 1; 
     }
 
     /**
@@ -76,8 +96,7 @@ public class CalendarMonth {
      * @return Days in the month
      */
     public int getDaysInMonth() {
-        calendar.set(year, month, 1);
-        return calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+        return grid.getLength();
     }
 
     /**
@@ -86,8 +105,7 @@ public class CalendarMonth {
      * @return 0 = Sunday, 1 = Monday, ..., 6 = Saturday
      */
     public int getFirstDayOfWeek() {
-        calendar.set(year, month, 1);
-        return calendar.get(Calendar.DAY_OF_WEEK) - 1;
+        return grid.getFirstWeekday();
     }
 
     /**
@@ -96,10 +114,54 @@ public class CalendarMonth {
      * @return Day of month (1-31), or -1 if not the current month
      */
     public int getCurrentDay() {
-        Calendar today = new GregorianCalendar();
-        if (today.get(Calendar.MONTH) == month && today.get(Calendar.YEAR) == year) {
-            return today.get(Calendar.DAY_OF_MONTH);
+        return getGrid().getToday();
+    }
+
+    /**
+     * Returns the cached layout of the current month, reading the clock once.
+     * The grid is rebuilt only if the date has changed since it was computed.
+     *
+     * @return The month grid
+     */
+    public MonthGrid getGrid() {
+        LocalDate today = LocalDate.now();
+        if (!grid.isCurrent(today)) {
+            grid = gridFor(yearMonth, today);
+        }
+        return grid;
+    }
+
+    /**
+     * Returns the cached grid of any month, e.g. one the calendar is about to show.
+     * Must be called from the Greenfoot thread, like the rest of this class.
+     *
+     * @param yearMonth The month
+     * @return The month's layout
+     */
+    public static MonthGrid getGrid(YearMonth yearMonth) {
+        return gridFor(yearMonth, LocalDate.now());
+    }
+
+    /**
+     * Switches to a month and looks up its grid.
+     *
+     * @param yearMonth The month to show
+     */
+    public void setMonth(YearMonth yearMonth) {
+        this.yearMonth = yearMonth;
+        this.grid = gridFor(yearMonth, LocalDate.now());
+    }
+
+    /**
+     * Returns the cached grid for a month, computing it on first use or
+     * when the cached one was computed on another day.
+     */
+    private static MonthGrid gridFor(YearMonth yearMonth, LocalDate today) {
+        MonthGrid grid = grids.get(yearMonth);
+        if (grid == null || !grid.isCurrent(today)) {
+            grid = new MonthGrid(yearMonth, today);
+            grids.put(yearMonth, grid);
         }
-        return -1;
+        return grid;
     }
 }
@@ -1,20 +1,36 @@
 import greenfoot.*;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.Locale;
 import java.util.ArrayList;
 
 public class CalendarPanel extends Actor {
     private User currentUser;
     private int width, height;
-    private ArrayList<CalendarDay> days = new ArrayList<>();
+    private CalendarDay[] cells;  // Fixed pool of grid cells, rebound to new dates on navigation
     private ArrayList<Actor> calendarElements = new ArrayList<>(); // NEW: track all elements
     private CalendarMonth calendarMonth;
+    private CalendarPrefetcher prefetcher;  // Renders the neighbouring months in the background
     private ButtonActor prevBtn, nextBtn;
+    private ButtonActor prevYearBtn, nextYearBtn;
     private TextLabel monthLabel;
+    private ArrayList<TextLabel> dayNameLabels = new ArrayList<>(); // "Sun".."Sat" above the month grid
+
+    private static final int MONTH_VIEW = 0, WEEK_VIEW = 1, DAY_VIEW = 2; // Views the panel can show
+    private int view = MONTH_VIEW;           // The view currently shown
+    private long focusDay;                   // A day in the week or day being shown, as days since 1970-01-01
+    private TimeGridView timeGrid;           // Hourly grid for the week and day views, created on first use
+    private int visibleCategories = Event.ALL_CATEGORIES; // Category bits of the calendars shown
     
     public CalendarPanel(User user, int w, int h) {
         currentUser = user;
         width = w;
         height = h;
         calendarMonth = new CalendarMonth();
+        prefetcher = new CalendarPrefetcher(user);
         createPanel();
     }
     
@@ -33,24 +49,141 @@ public class CalendarPanel extends Actor {
     }
     
     protected void addedToWorld(World world) {
+        // Back from the dashboard's page cache: the header, cells and buttons come back with it
+        if (cells != null) return;
+
         createHeader(world);
         createCalendar(world);
+        createIcsButtons(world);
+        createViewButtons(world);
+        createCategoryToggles(world);
+        prefetchNeighbours();
+    }
+
+    /**
+     * Adds a toggle per calendar (School, Personal, Work) below the view buttons.
+     */
+    private void createCategoryToggles(World world) {
+        int[] categories = {Event.SCHOOL, Event.PERSONAL, Event.WORK};
+        for (int i = 0; i < categories.length; i++) {
+            CategoryToggle toggle = new CategoryToggle(categories[i], this);
+            world.addObject(toggle, getX() - 200 + i * 95, getY() + height/2 + 60);
+            calendarElements.add(toggle);
+        }
+    }
+
+    /**
+     * Returns the category bits of the calendars currently shown.
+     *
+     * @return A mask of Event.SCHOOL, PERSONAL and WORK bits
+     */
+    public int getVisibleCategories() {
+        return visibleCategories;
+    }
+
+    /**
+     * Hides or shows one calendar. The cells filter the events they already
+     * have, and only cells with events in that calendar are redrawn.
+     *
+     * @param category The category bit to flip
+     */
+    public void toggleCategory(int category) {
+        visibleCategories ^= category;
+        if (cells == null) return;
+        // Background renderings were drawn with the old filter
+        prefetcher.invalidate();
+        prefetchNeighbours();
+        if (view != MONTH_VIEW) {
+            timeGrid.applyFilter(category);
+            return;
+        }
+        for (CalendarDay day : cells) {
+            day.applyFilter(category);
+        }
+    }
+
+    /**
+     * Adds the Month, Week and Day buttons below the calendar.
+     */
+    private void createViewButtons(World world) {
+        String[] names = {"Month", "Week", "Day"};
+        for (int i = 0; i < names.length; i++) {
+            final int buttonView = i;
+            ButtonActor viewBtn = new ButtonActor(names[i], 255, 255, 255, 0, 0, 128, 60, 30) {
+                public void onClick() {
+                    setView(buttonView);
+                }
+            };
+            world.addObject(viewBtn, getX() - 215 + i * 65, getY() + height/2 + 25);
+            calendarElements.add(viewBtn);
+        }
+    }
+
+    /**
+     * Adds the Import and Export buttons below the calendar,
+     * which read and write .ics files.
+     */
+    private void createIcsButtons(World world) {
+        int y = getY() + height/2 + 25;
+
+        ButtonActor importBtn = new ButtonActor("Import .ics", 255, 255, 255, 0, 0, 128, 100, 30) {
+            public void onClick() {
+                String path = Greenfoot.ask("Path of the .ics file to import:");
+                if (path == null || path.trim().isEmpty()) return;
+                try {
+                    IcsCodec.ImportResult result = IcsCodec.importFile(currentUser, new File(path.trim()));
+                    refreshCalendar();
+                    String skipped = result.getUnsupportedRules() == 0 ? ""
+                        : " " + result.getUnsupportedRules() + " repeating events only have their first occurrence.";
+                    Greenfoot.ask("Imported " + result.getImported() + " events." + skipped + " Press Enter to continue.");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    Greenfoot.ask("Could not read " + path.trim() + ". Press Enter to continue.");
+                }
+            }
+        };
+        world.addObject(importBtn, getX() + 45, y);
+        calendarElements.add(importBtn);
+
+        ButtonActor exportBtn = new ButtonActor("Export .ics", 255, 255, 255, 0, 0, 128, 100, 30) {
+            public void onClick() {
+                String path = Greenfoot.ask("Save the calendar as (e.g. calendar.ics):");
+                if (path == null || path.trim().isEmpty()) return;
+                try {
+                    int count = IcsCodec.exportFile(currentUser, new File(path.trim()));
+                    Greenfoot.ask("Exported " + count + " events. Press Enter to continue.");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    Greenfoot.ask("Could not write " + path.trim() + ". Press Enter to continue.");
+                }
+            }
+        };
+        world.addObject(exportBtn, getX() + 155, y);
+        calendarElements.add(exportBtn);
     }
     
     private void createHeader(World world) {
         // Previous month button
         prevBtn = new ButtonActor("<", 255, 255, 255, 0, 0, 128, 40, 40) {
             public void onClick() {
-                calendarMonth.prevMonth();
-                refreshCalendar();
+                navigate(-1, false);
             }
         };
         world.addObject(prevBtn, getX() - 180, getY() - (height/2) + 30);
         calendarElements.add(prevBtn); // Track it
+
+        // Previous year button
+        prevYearBtn = new ButtonActor("«", 255, 255, 255, 0, 0, 128, 40, 40) {
+            public void onClick() {
+                navigate(-1, true);
+            }
+        };
+        world.addObject(prevYearBtn, getX() - 225, getY() - (height/2) + 30);
+        calendarElements.add(prevYearBtn);
         
         // Month and Year label
         monthLabel = new TextLabel(
-            calendarMonth.getMonthName() + " " + calendarMonth.getYear(),
+            calendarMonth.getGrid().getTitle(),
             28,
             new greenfoot.Color(0, 0, 128),
             300, 40,
@@ -62,12 +195,20 @@ public class CalendarPanel extends Actor {
         // Next month button
         nextBtn = new ButtonActor(">", 255, 255, 255, 0, 0, 128, 40, 40) {
             public void onClick() {
-                calendarMonth.nextMonth();
-                refreshCalendar();
+                navigate(1, false);
             }
         };
         world.addObject(nextBtn, getX() + 180, getY() - (height/2) + 30);
         calendarElements.add(nextBtn); // Track it
+
+        // Next year button
+        nextYearBtn = new ButtonActor("»", 255, 255, 255, 0, 0, 128, 40, 40) {
+            public void onClick() {
+                navigate(1, true);
+            }
+        };
+        world.addObject(nextYearBtn, getX() + 225, getY() - (height/2) + 30);
+        calendarElements.add(nextYearBtn);
         
         // Day labels (Sun, Mon, Tue, etc.)
         String[] dayNames = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
@@ -85,6 +226,7 @@ public class CalendarPanel extends Actor {
             int x = getX() - width/2 + i * cellW + cellW/2;
             world.addObject(dayLabel, x, labelY);
             calendarElements.add(dayLabel); // Track it
+            dayNameLabels.add(dayLabel);
         }
     }
     
@@ -94,65 +236,218 @@ public class CalendarPanel extends Actor {
         int cellW = width / cols;
         int cellH = (height - 120) / rows;
         
-        int daysInMonth = calendarMonth.getDaysInMonth();
-        int firstDay = calendarMonth.getFirstDayOfWeek();
-        int currentDay = calendarMonth.getCurrentDay();
-        
-        int dayNumber = 1;
+        // The cached grid already knows the month's length, first weekday and today
+        MonthGrid grid = calendarMonth.getGrid();
+        cells = new CalendarDay[MonthGrid.CELLS];
         
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
                 int cellIndex = r * cols + c;
+                int dayNumber = grid.getDayAt(cellIndex);
+                boolean isToday = (dayNumber == grid.getToday());
+                CalendarDay day = new CalendarDay(dayNumber, grid.getEpochDay(dayNumber), currentUser, this, isToday);
                 
-                if (cellIndex >= firstDay && dayNumber <= daysInMonth) {
-                    boolean isToday = (dayNumber == currentDay);
-                    CalendarDay day = new CalendarDay(dayNumber, currentUser, isToday);
-                    
-                    int x = getX() - width/2 + c * cellW + cellW/2;
-                    int y = getY() - (height/2) + 110 + r * cellH + cellH/2;
-                    
-                    world.addObject(day, x, y);
-                    days.add(day);
-                    calendarElements.add(day); // Track it
-                    dayNumber++;
-                }
+                int x = getX() - width/2 + c * cellW + cellW/2;
+                int y = getY() - (height/2) + 110 + r * cellH + cellH/2;
+                
+                world.addObject(day, x, y);
+                cells[cellIndex] = day;
+                calendarElements.add(day); // Track it
             }
         }
     }
     
+    /**
+     * Shows the month currently selected in calendarMonth.
+     * The 42 cells stay in the world and are rebound to the new dates;
+     * only cells whose content changed are redrawn. If the month was already
+     * rendered in the background, its images are swapped in without drawing.
+     */
     public void refreshCalendar() {
-        World world = getWorld();
-        if (world == null) return;
+        if (cells == null) return;
+        if (view != MONTH_VIEW) {
+            refreshTimeGrid();
+            return;
+        }
+        
+        MonthGrid grid = calendarMonth.getGrid();
+        monthLabel.setText(grid.getTitle());
         
-        // Remove old days
-        for (CalendarDay day : days) {
-            if (day.getWorld() != null) {
-                world.removeObject(day);
-                calendarElements.remove(day);
+        CalendarPrefetcher.RenderedMonth rendered = prefetcher.take(grid, visibleCategories);
+        for (int i = 0; i < cells.length; i++) {
+            int dayNumber = grid.getDayAt(i);
+            long epochDay = grid.getEpochDay(dayNumber);
+            boolean isToday = dayNumber == grid.getToday();
+            if (rendered != null) {
+                cells[i].show(dayNumber, epochDay, isToday, rendered.getEvents(i), rendered.getContent(i), rendered.getImage(i));
+            } else {
+                cells[i].bind(dayNumber, epochDay, isToday);
             }
         }
-        days.clear();
-        
-        // Update month label
-        if (monthLabel != null && monthLabel.getWorld() != null) {
-            world.removeObject(monthLabel);
-            calendarElements.remove(monthLabel);
+        prefetchNeighbours();
+    }
+
+    /**
+     * Moves the shown period back or forward: by a month (or a year with
+     * « ») in the month view, by a week or day (or a month with « ») otherwise.
+     *
+     * @param direction -1 to go back, 1 to go forward
+     * @param big       true for the « » buttons
+     */
+    private void navigate(int direction, boolean big) {
+        if (view == MONTH_VIEW) {
+            if (big && direction < 0) calendarMonth.prevYear();
+            else if (big) calendarMonth.nextYear();
+            else if (direction < 0) calendarMonth.prevMonth();
+            else calendarMonth.nextMonth();
+        } else if (big) {
+            focusDay = LocalDate.ofEpochDay(focusDay).plusMonths(direction).toEpochDay();
+        } else {
+            focusDay += direction * (view == WEEK_VIEW ? 7 : 1);
         }
-        
-        monthLabel = new TextLabel(
-            calendarMonth.getMonthName() + " " + calendarMonth.getYear(),
-            28,
-            new greenfoot.Color(0, 0, 128),
-            300, 40,
-            new greenfoot.Color(0, 0, 0, 0)
-        );
-        world.addObject(monthLabel, getX(), getY() - (height/2) + 30);
-        calendarElements.add(monthLabel);
-        
-        // Recreate calendar
-        createCalendar(world);
+        refreshCalendar();
+    }
+
+    /**
+     * Switches between the month, week and day views. The week and day
+     * views start on today if it is in the shown month, otherwise on the 1st;
+     * the month view returns to the month of the day last shown.
+     *
+     * @param newView MONTH_VIEW, WEEK_VIEW or DAY_VIEW
+     */
+    private void setView(int newView) {
+        World world = getWorld();
+        if (newView == view || world == null || cells == null) return;
+
+        if (view == MONTH_VIEW) {
+            MonthGrid grid = calendarMonth.getGrid();
+            focusDay = grid.getEpochDay(grid.getToday() > 0 ? grid.getToday() : 1);
+        } else if (newView == MONTH_VIEW) {
+            calendarMonth.setMonth(YearMonth.from(LocalDate.ofEpochDay(focusDay)));
+        }
+        view = newView;
+
+        // Swap the month grid and the time grid in and out of the world
+        boolean month = view == MONTH_VIEW;
+        for (int i = 0; i < cells.length; i++) {
+            showIf(world, cells[i], month, cellX(i % 7), cellY(i / 7));
+        }
+        for (int i = 0; i < dayNameLabels.size(); i++) {
+            showIf(world, dayNameLabels.get(i), month, cellX(i), getY() - (height/2) + 70);
+        }
+        if (timeGrid == null) {
+            timeGrid = new TimeGridView(currentUser, this, width, height - 55);
+            calendarElements.add(timeGrid);
+        }
+        showIf(world, timeGrid, !month, getX(), getY() - (height/2) + 55 + (height - 55)/2);
+
+        refreshCalendar();
+    }
+
+    /**
+     * Shows the week or day around focusDay in the time grid.
+     */
+    private void refreshTimeGrid() {
+        LocalDate date = LocalDate.ofEpochDay(focusDay);
+        if (view == DAY_VIEW) {
+            timeGrid.show(focusDay, 1);
+            monthLabel.setText(date.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " "
+                + date.getDayOfMonth() + " " + shortMonth(date) + " " + date.getYear());
+            return;
+        }
+
+        LocalDate first = date.minusDays(date.getDayOfWeek().getValue() % 7); // Weeks start on Sunday
+        LocalDate last = first.plusDays(6);
+        timeGrid.show(first.toEpochDay(), 7);
+        String from = first.getMonth() == last.getMonth() ? "" + first.getDayOfMonth()
+                                                          : first.getDayOfMonth() + " " + shortMonth(first) + " ";
+        monthLabel.setText(from + "-" + last.getDayOfMonth() + " " + shortMonth(last) + " " + last.getYear());
+    }
+
+    /**
+     * Returns the three-letter name of a date's month, e.g. "Oct".
+     */
+    private static String shortMonth(LocalDate date) {
+        return date.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
+    }
+
+    /**
+     * Opens the event popup for any day, e.g. one clicked in the week view.
+     *
+     * @param epochDay The day, as days since 1970-01-01
+     */
+    public void openDay(long epochDay) {
+        World world = getWorld();
+        if (world == null) return;
+
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        boolean isToday = epochDay == LocalDate.now().toEpochDay();
+        // A cell that is not in the world; it routes changes back to this panel
+        CalendarDay day = new CalendarDay(date.getDayOfMonth(), epochDay, currentUser, this, isToday);
+        new EventPopup(date.getDayOfMonth(), day).open(world);
+    }
+
+    /**
+     * Adds or removes one of the panel's actors depending on a condition.
+     */
+    private void showIf(World world, Actor actor, boolean show, int x, int y) {
+        if (show && actor.getWorld() == null) {
+            world.addObject(actor, x, y);
+        } else if (!show && actor.getWorld() != null) {
+            world.removeObject(actor);
+        }
+    }
+
+    /**
+     * Returns the x position of a month grid column.
+     */
+    private int cellX(int column) {
+        int cellW = width / 7;
+        return getX() - width/2 + column * cellW + cellW/2;
+    }
+
+    /**
+     * Returns the y position of a month grid row.
+     */
+    private int cellY(int row) {
+        int cellH = (height - 120) / 6;
+        return getY() - (height/2) + 110 + row * cellH + cellH/2;
+    }
+
+    /**
+     * Starts rendering the months before and after the one shown.
+     */
+    private void prefetchNeighbours() {
+        if (view != MONTH_VIEW) return;
+        YearMonth shown = calendarMonth.getGrid().getYearMonth();
+        prefetcher.prefetch(CalendarMonth.getGrid(shown.minusMonths(1)), visibleCategories);
+        prefetcher.prefetch(CalendarMonth.getGrid(shown.plusMonths(1)), visibleCategories);
     }
     
+    /**
+     * Redraws the displayed days in a date range, e.g. after an event was
+     * added or removed. In the week and day views the time grid redraws
+     * whichever of its columns changed.
+     *
+     * @param firstDay First day to redraw, as days since 1970-01-01
+     * @param lastDay  Last day to redraw (inclusive)
+     */
+    public void refreshDays(long firstDay, long lastDay) {
+        if (cells == null) return;
+        // Months rendered in the background may show the old events
+        prefetcher.invalidate();
+        prefetchNeighbours();
+        if (view != MONTH_VIEW) {
+            refreshTimeGrid();
+            return;
+        }
+        for (CalendarDay day : cells) {
+            if (day.getEpochDay() >= firstDay && day.getEpochDay() <= lastDay) {
+                day.updateImage();
+            }
+        }
+    }
+
     // NEW: Method to clean up all calendar elements
     public void removeAllElements() {
         World world = getWorld();
@@ -164,10 +459,6 @@ public class CalendarPanel extends Actor {
             }
         }
         calendarElements.clear();
-        days.clear();
-    }
-    
-    public ArrayList<CalendarDay> getDays() {
-        return days;
+        cells = null;
     }
 }
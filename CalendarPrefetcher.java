@@ -0,0 +1,187 @@
+import greenfoot.*;
+import java.awt.image.BufferedImage;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * CalendarPrefetcher renders the day cells of months the user is likely to
+ * open next (the ones before and after the month on screen) on a background
+ * thread, so CalendarPanel can swap in finished images when the user presses
+ * &lt; or &gt; instead of querying and drawing 42 cells on the Greenfoot thread.
+ *
+ * The thread draws each cell into a plain AWT BufferedImage, as RenderPool
+ * jobs do, since GreenfootImage is not thread-safe; {@link #take} wraps them
+ * as GreenfootImages on the Greenfoot thread the first time a month is used.
+ *
+ * Finished months are kept in a small cache, evicted least-recently-used.
+ * Each one remembers the event store version, "today" and the visible
+ * calendars it was rendered for; a month rendered before an event changed
+ * or a calendar was hidden is never shown.
+ */
+public class CalendarPrefetcher {
+
+    /** Maximum number of rendered months kept */
+    private static final int MAX_MONTHS = 6;
+
+    /** One low-priority daemon thread shared by all calendars */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "calendar-prefetch");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    /**
+     * The cells of one month, rendered in the background.
+     */
+    public static class RenderedMonth {
+        private final int today;                    // Today's day of month when rendered, or -1
+        private final long storeVersion;            // Event store version the events were read at
+        private final int visibleCategories;        // Category bits of the calendars drawn
+        private final String[] contents = new String[MonthGrid.CELLS];            // CalendarDay.describe key per cell
+        private final BufferedImage[] drawn = new BufferedImage[MonthGrid.CELLS];  // Image per cell as drawn, null for blank cells
+        private GreenfootImage[] images;            // The drawn images wrapped on the Greenfoot thread, null until taken
+        private final List<List<Event>> events = new ArrayList<>(); // Events per cell, in every calendar
+
+        private RenderedMonth(int today, long storeVersion, int visibleCategories) {
+            this.today = today;
+            this.storeVersion = storeVersion;
+            this.visibleCategories = visibleCategories;
+        }
+
+        /** Returns the events of a cell in every calendar, hidden ones included */
+        public List<Event> getEvents(int cell) {
+            return events.get(cell);
+        }
+
+        /** Returns the describe key of a cell */
+        public String getContent(int cell) {
+            return contents[cell];
+        }
+
+        /** Returns the rendered image of a cell */
+        public GreenfootImage getImage(int cell) {
+            return images[cell];
+        }
+
+        /**
+         * Wraps the drawn images as GreenfootImages, once. Greenfoot thread only.
+         */
+        private void wrapImages() {
+            if (images != null) return;
+            images = new GreenfootImage[MonthGrid.CELLS];
+            for (int cell = 0; cell < MonthGrid.CELLS; cell++) {
+                images[cell] = drawn[cell] != null ? RenderPool.toGreenfootImage(drawn[cell]) : CalendarDay.BLANK;
+                drawn[cell] = null;
+            }
+        }
+    }
+
+    private User user;                              // Owner of the events shown
+    private Map<YearMonth, RenderedMonth> ready = Collections.synchronizedMap(
+        new LinkedHashMap<YearMonth, RenderedMonth>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, RenderedMonth> eldest) {
+                return size() > MAX_MONTHS;
+            }
+        });                                         // Finished months
+    private Set<YearMonth> queued = Collections.synchronizedSet(new HashSet<YearMonth>()); // Months waiting or rendering
+
+    /**
+     * Constructs a prefetcher for one user's calendar.
+     *
+     * @param user The user whose events are rendered
+     */
+    public CalendarPrefetcher(User user) {
+        this.user = user;
+    }
+
+    /**
+     * Queues a month to be rendered in the background, unless an up-to-date
+     * rendering is already cached or queued.
+     *
+     * @param grid              The month's layout
+     * @param visibleCategories Category bits of the calendars to draw
+     */
+    public void prefetch(final MonthGrid grid, final int visibleCategories) {
+        final YearMonth month = grid.getYearMonth();
+        if (current(grid, visibleCategories) != null || !queued.add(month)) return;
+
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    ready.put(month, render(grid, visibleCategories));
+                } finally {
+                    queued.remove(month);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the rendered cells of a month if they are ready and still
+     * match the events, today's date and the visible calendars, otherwise null.
+     * Must be called on the Greenfoot thread, which wraps the cell images.
+     *
+     * @param grid              The month's layout
+     * @param visibleCategories Category bits of the calendars shown
+     * @return The rendered month, or null
+     */
+    public RenderedMonth take(MonthGrid grid, int visibleCategories) {
+        RenderedMonth month = current(grid, visibleCategories);
+        if (month != null) month.wrapImages();
+        return month;
+    }
+
+    /**
+     * Returns a month's rendering if it is up to date, dropping it if it is stale.
+     */
+    private RenderedMonth current(MonthGrid grid, int visibleCategories) {
+        RenderedMonth month = ready.get(grid.getYearMonth());
+        if (month == null) return null;
+        if (month.storeVersion != user.getEventStore().getVersion() || month.today != grid.getToday()
+                || month.visibleCategories != visibleCategories) {
+            ready.remove(grid.getYearMonth());
+            return null;
+        }
+        return month;
+    }
+
+    /**
+     * Drops every rendered month, e.g. after events changed or a calendar was hidden.
+     */
+    public void invalidate() {
+        ready.clear();
+    }
+
+    /**
+     * Reads the events of every cell in a month and draws the cells.
+     * Runs on the prefetch thread.
+     */
+    private RenderedMonth render(MonthGrid grid, int visibleCategories) {
+        CalendarEventStore store = user.getEventStore();
+        // Read the version first: a change made while rendering makes the result stale
+        RenderedMonth month = new RenderedMonth(grid.getToday(), store.getVersion(), visibleCategories);
+        for (int cell = 0; cell < MonthGrid.CELLS; cell++) {
+            int day = grid.getDayAt(cell);
+            long epochDay = grid.getEpochDay(day);
+            boolean isToday = day == grid.getToday();
+            List<Event> events = day > 0 ? store.getEventsOn(epochDay) : Collections.<Event>emptyList();
+            List<Event> shown = CalendarDay.filter(events, visibleCategories);
+            month.events.add(events);
+            month.contents[cell] = CalendarDay.describe(day, epochDay, isToday, shown);
+            if (day > 0) month.drawn[cell] = CalendarDay.draw(day, epochDay, isToday, shown);
+        }
+        return month;
+    }
+}
@@ -0,0 +1,90 @@
+import greenfoot.*;
+
+/**
+ * CategoryToggle is a chip below the calendar that hides or shows one of
+ * the user's calendars (School, Personal or Work). It is filled with the
+ * calendar's color while the calendar is shown and outlined while hidden.
+ */
+public class CategoryToggle extends Actor {
+
+    private static final int WIDTH = 90, HEIGHT = 26;
+
+    private int category;                // The category bit this chip controls
+    private CalendarPanel parentPanel;   // The calendar that is filtered
+    private InputDispatcher.Region clickRegion; // Set while an InputDispatcher delivers the clicks
+
+    /**
+     * Constructs a toggle for one calendar.
+     *
+     * @param category Event.SCHOOL, Event.PERSONAL or Event.WORK
+     * @param panel    The calendar panel to filter
+     */
+    public CategoryToggle(int category, CalendarPanel panel) {
+        this.category = category;
+        this.parentPanel = panel;
+        updateImage();
+    }
+
+    /**
+     * Registers the chip with the world's InputDispatcher, if it has one.
+     */
+    protected void addedToWorld(World world) {
+        clickRegion = InputDispatcher.attach(this, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                toggle();
+            }
+        });
+    }
+
+    /**
+     * Flips the calendar's visibility when clicked, unless an InputDispatcher delivers the clicks.
+     */
+    public void act() {
+        long start = Profiler.start();
+        if (clickRegion == null && Greenfoot.mouseClicked(this)) {
+            toggle();
+        }
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Flips the calendar's visibility and redraws the chip.
+     */
+    private void toggle() {
+        playSound("button-1.wav");
+        parentPanel.toggleCategory(category);
+        updateImage();
+    }
+
+    /**
+     * Draws the chip: filled when the calendar is shown, outlined when hidden.
+     */
+    private void updateImage() {
+        long start = Profiler.start();
+        boolean shown = (parentPanel.getVisibleCategories() & category) != 0;
+        greenfoot.Color color = CalendarDay.categoryColor(category);
+
+        GreenfootImage img = new GreenfootImage(WIDTH, HEIGHT);
+        img.setColor(shown ? color : new greenfoot.Color(255, 255, 255));
+        img.fill();
+        img.setColor(color);
+        img.drawRect(0, 0, WIDTH - 1, HEIGHT - 1);
+
+        img.setFont(new Font("Arial", true, false, 12));
+        img.setColor(shown ? new greenfoot.Color(255, 255, 255) : color);
+        img.drawString((shown ? "✓ " : "") + Event.categoryName(category), 8, HEIGHT / 2 + 5);
+        setImage(img);
+        Profiler.stop(this, "updateImage", start);
+    }
+
+    /**
+     * Plays a sound, ignoring errors if the file is missing.
+     */
+    private void playSound(String soundFile) {
+        try {
+            Greenfoot.playSound(soundFile);
+        } catch (Exception e) {
+            // Ignore sound errors
+        }
+    }
+}
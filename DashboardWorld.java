@@ -1,17 +1,49 @@
 import greenfoot.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 /**
  * 
  * The DashboardWorld class represents the main dashboard interface for a user.
- * It includes a sidebar for navigation between Home, Calendar, Tasks, School, Notes, 
- * and Logout options. It dynamically displays panels based on user interaction.
+ * It includes a sidebar for navigation between Home, Calendar, Tasks, School, Notes,
+ * Activity and Logout options. It dynamically displays panels based on user interaction.
+ *
+ * Pages are built the first time they are shown and kept afterwards: leaving
+ * a page removes its actors from the world but keeps them, and returning adds
+ * them back as they were. A page is only refreshed if the data it shows
+ * changed while it was hidden.
+ *
+ * F3 toggles a ProfilerHud with frame times and the slowest widgets.
  */
 public class DashboardWorld extends World {
 
     private User currentUser;
     private UserManager userManager;
-    private ArrayList<Actor> contentArea = new ArrayList<>();
+    private Runnable currentPage;                // Shows the current page again, e.g. after a theme change
+    private InputDispatcher input;               // Delivers clicks to the widgets on the dashboard
+    private IdleGovernor governor = new IdleGovernor(); // Slows the act loop while the user is away
+    private ProfilerHud profilerHud;             // The F3 overlay, or null while it is hidden
+    private boolean f3Held;                      // F3 state in the previous frame
+    private HashSet<Actor> sidebar;              // Actors that stay on every page
+    private HashMap<String, Page> pages = new HashMap<>(); // Pages built so far, by name
+    private Page shownPage;                      // The page on screen, or null
+
+    /**
+     * The actors of a page, kept with their locations while the page is hidden.
+     */
+    private static class Page {
+        private final String name;               // "home", "tasks", ...
+        private final Runnable refresh;          // Shows changed data again, or null to build the page anew
+        private final ArrayList<Actor> actors = new ArrayList<>(); // In the order they were added
+        private final ArrayList<int[]> locations = new ArrayList<>(); // x and y of each actor
+        private long version;                    // Version of the data when the page was hidden
+
+        private Page(String name, Runnable refresh) {
+            this.name = name;
+            this.refresh = refresh;
+        }
+    }
 
     /**
      * Constructor for DashboardWorld.
@@ -24,29 +56,99 @@ public class DashboardWorld extends World {
         super(800, 600, 1);
         this.currentUser = user;
         this.userManager = manager;
+        input = new InputDispatcher(this);
+        // Load the activity counters now: a user without them is seeded from
+        // the calendar here rather than inside the first event they add
+        currentUser.getActivity();
         setBackgroundColor();
         addSidebar();
+        sidebar = new HashSet<>(getObjects(Actor.class));
         showHome();
     }
 
     /**
-     * Sets the background color of the dashboard to a light beige color.
+     * Lowers or restores the speed depending on activity, hands card images
+     * finished in the background to their cards, then reads the mouse once
+     * for the whole dashboard and passes a click to the widget under it.
+     * Also starts a Profiler frame and toggles its overlay on F3.
+     */
+    public void act() {
+        long start = Profiler.frame(this);
+        boolean f3 = Greenfoot.isKeyDown("f3");
+        if (f3 && !f3Held) toggleProfiler();
+        f3Held = f3;
+
+        governor.act();
+        RenderPool.deliver();
+        input.dispatch();
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Shows or hides the profiler overlay in the top-right corner, measuring
+     * only while it is shown. The overlay stays on every page like the
+     * sidebar and is painted over everything else.
+     */
+    private void toggleProfiler() {
+        if (profilerHud == null) {
+            Profiler.setEnabled(true);
+            profilerHud = new ProfilerHud(governor);
+            setPaintOrder(ProfilerHud.class);
+            addObject(profilerHud, getWidth() - ProfilerHud.WIDTH / 2 - 5, profilerHud.getImage().getHeight() / 2 + 5);
+            sidebar.add(profilerHud);
+        } else {
+            Profiler.setEnabled(false);
+            sidebar.remove(profilerHud);
+            removeObject(profilerHud);
+            profilerHud = null;
+        }
+    }
+
+    /**
+     * Returns the dispatcher that widgets on the dashboard register their click regions with.
+     *
+     * @return The dashboard's input dispatcher
+     */
+    public InputDispatcher getInput() {
+        return input;
+    }
+
+    /**
+     * Sets the background color of the dashboard from the theme (beige, or dark grey in dark mode).
      */
     private void setBackgroundColor() {
         GreenfootImage bg = new GreenfootImage(getWidth(), getHeight());
-        bg.setColor(new greenfoot.Color(239, 232, 219)); // beige
+        bg.setColor(Theme.current().pageBackground);
         bg.fill();
         setBackground(bg);
     }
 
     /**
-     * Adds the sidebar buttons for navigation: Home, Calendar, Tasks, School, Notes, and Log Out.
+     * Switches between the light and dark theme and shows the current page again in it.
+     */
+    private void toggleTheme() {
+        Theme.toggle();
+        setBackgroundColor();
+
+        // Kept pages were drawn in the old theme
+        hidePage();
+        pages.clear();
+        currentPage.run();
+    }
+
+    /**
+     * Adds the sidebar buttons for navigation: Home, Calendar, Tasks, School, Notes, Activity, and Log Out.
      * Each button is linked to its respective method.
      */
     private void addSidebar() {
         int sidebarX = 75;
-        int startY = 150;
-        int spacing = 70;
+        int startY = 130;
+        int spacing = 62;
+
+        // Theme toggle above the navigation
+        addObject(new ButtonActor("Light / Dark", 255, 255, 255, 60, 60, 80, 120, 36) {
+            public void onClick() { toggleTheme(); }
+        }, sidebarX, 60);
 
         // Home Button
         addObject(new ButtonActor("Home", 255, 255, 255, 0, 0, 128, 120, 50) {
@@ -73,45 +175,100 @@ public class DashboardWorld extends World {
             public void onClick() { showNotes(); }
         }, sidebarX, startY + spacing*4);
 
+        // Activity Button
+        addObject(new ButtonActor("Activity", 255, 255, 255, 0, 0, 128, 120, 50) {
+            public void onClick() { showActivity(); }
+        }, sidebarX, startY + spacing*5);
+
         // Logout Button
         addObject(new ButtonActor("Log Out", 255, 255, 255, 128, 0, 0, 120, 50) {
-            public void onClick() { Greenfoot.setWorld(new LoginWorld(userManager)); }
-        }, sidebarX, startY + spacing*5);
+            public void onClick() {
+                Profiler.setEnabled(false);
+                Greenfoot.setWorld(new LoginWorld(userManager));
+            }
+        }, sidebarX, startY + spacing*6);
     }
 
     /**
      * Shows the School page by adding a SchoolPanel to the dashboard.
      */
     private void showSchool() {
-        clearContent();
-        SchoolPanel schoolPanel = new SchoolPanel(currentUser, 500, 400);
+        currentPage = new Runnable() { public void run() { showSchool(); } };
+        if (reopen("school")) return;
+        final SchoolPanel schoolPanel = new SchoolPanel(currentUser, 500, 400);
         addObject(schoolPanel, 500, 300);
-        contentArea.add(schoolPanel);
+        opened("school", new Runnable() { public void run() { schoolPanel.refreshTasks(); } });
+    }
+
+    /**
+     * Shows a page that was built before, if it is kept and its data has not
+     * changed in a way it cannot refresh. Any other page is hidden first.
+     *
+     * @param name The page's name
+     * @return true if the page is on screen now, false if it must be built
+     */
+    private boolean reopen(String name) {
+        if (shownPage != null && shownPage.name.equals(name)) return true;
+        hidePage();
+
+        Page page = pages.get(name);
+        if (page == null) return false;
+        boolean changed = page.version != versionOf(name);
+        if (changed && page.refresh == null) {
+            pages.remove(name);
+            return false;
+        }
+
+        for (int i = 0; i < page.actors.size(); i++) {
+            int[] location = page.locations.get(i);
+            addObject(page.actors.get(i), location[0], location[1]);
+        }
+        shownPage = page;
+        if (changed) page.refresh.run();
+        return true;
     }
 
     /**
-     * Clears the main content area by removing all existing panels and temporary objects.
-     * Ensures that the dashboard does not overlap content when switching pages.
+     * Records that a page was just built, so it is kept when the user moves on.
+     *
+     * @param name    The page's name
+     * @param refresh Shows changed data on the kept page, or null to build it again instead
      */
-    private void clearContent() {
-        // Remove existing panels and their elements
-        for (CalendarPanel panel : getObjects(CalendarPanel.class)) panel.removeAllElements();
-        for (TaskPanel panel : getObjects(TaskPanel.class)) panel.removeAllElements();
-        for (SchoolPanel panel : getObjects(SchoolPanel.class)) panel.removeAllElements();
-        for (NotesPanel panel : getObjects(NotesPanel.class)) panel.removeAllElements();
-        for (MusicSelector selector : getObjects(MusicSelector.class)) selector.removeAllElements();
+    private void opened(String name, Runnable refresh) {
+        shownPage = new Page(name, refresh);
+        pages.put(name, shownPage);
+    }
 
-        // Remove menus and temporary objects
+    /**
+     * Takes the page on screen out of the world, keeping its actors and their
+     * locations. Menus and popups are closed rather than kept.
+     */
+    private void hidePage() {
         removeObjects(getObjects(UrgencyMenu.class));
-        removeObjects(getObjects(EventPopup.class));
-        removeObjects(getObjects(EventItem.class));
+        for (EventPopup popup : getObjects(EventPopup.class)) popup.closePopup();
+        if (shownPage == null) return;
 
-        // Remove content actors
-        for (Actor a : contentArea) {
-            if (a.getWorld() != null) removeObject(a);
+        Page page = shownPage;
+        page.actors.clear();
+        page.locations.clear();
+        for (Actor actor : getObjects(Actor.class)) {
+            if (sidebar.contains(actor)) continue;
+            page.actors.add(actor);
+            page.locations.add(new int[] {actor.getX(), actor.getY()});
         }
+        removeObjects(page.actors);
+        page.version = versionOf(page.name);
+        shownPage = null;
+        input.removeDetached();
+    }
 
-        contentArea.clear();
+    /**
+     * Returns the version of the data a page shows, to see if it changed while the page was hidden.
+     */
+    private long versionOf(String name) {
+        if (name.equals("calendar")) return currentUser.getEventStore().getVersion();
+        if (name.equals("activity")) return currentUser.getActivity().getVersion();
+        return currentUser.getVersion();
     }
 
     // ----------------- Pages -----------------
@@ -120,29 +277,28 @@ public class DashboardWorld extends World {
      * Shows the Home page with welcome message, summary cards, and music selector.
      */
     private void showHome() {
-        clearContent();
+        currentPage = new Runnable() { public void run() { showHome(); } };
+        if (reopen("home")) return;
 
         // Welcome header
         TextLabel welcome = new TextLabel(
             "Welcome back, " + currentUser.getUsername() + "! ✨",
             40,
-            new greenfoot.Color(0, 0, 128),
+            Theme.current().accent,
             700, 70,
             new greenfoot.Color(0, 0, 0, 0)
         );
         addObject(welcome, 520, 80);
-        contentArea.add(welcome);
 
         // Subtitle
         TextLabel subtitle = new TextLabel(
             "Here's your productivity overview",
             18,
-            new greenfoot.Color(100, 100, 100),
+            Theme.current().mutedText,
             500, 30,
             new greenfoot.Color(0, 0, 0, 0)
         );
         addObject(subtitle, 520, 120);
-        contentArea.add(subtitle);
 
         // Left side - Summary cards
         int cardX = 340;
@@ -159,7 +315,6 @@ public class DashboardWorld extends World {
             new greenfoot.Color(220, 230, 255)
         );
         addObject(tasksCard, cardX, cardStartY);
-        contentArea.add(tasksCard);
 
         // School Card
         int schoolPending = 0;
@@ -175,7 +330,6 @@ public class DashboardWorld extends World {
             new greenfoot.Color(255, 235, 220)
         );
         addObject(schoolCard, cardX, cardStartY + cardSpacing);
-        contentArea.add(schoolCard);
 
         // Notes Card
         SummaryCard notesCard = new SummaryCard(
@@ -185,43 +339,54 @@ public class DashboardWorld extends World {
             new greenfoot.Color(255, 253, 220)
         );
         addObject(notesCard, cardX, cardStartY + cardSpacing * 2);
-        contentArea.add(notesCard);
 
         // Music Selector on the right
         MusicSelector musicSelector = new MusicSelector();
         addObject(musicSelector, 620, 330);
-        contentArea.add(musicSelector);
+        opened("home", null);
     }
 
     /**
      * Shows the Calendar page with a CalendarPanel.
      */
     private void showCalendar() {
-        clearContent();
-        CalendarPanel calendar = new CalendarPanel(currentUser, 500, 350);
+        currentPage = new Runnable() { public void run() { showCalendar(); } };
+        if (reopen("calendar")) return;
+        final CalendarPanel calendar = new CalendarPanel(currentUser, 500, 350);
         addObject(calendar, 500, 300);
-        contentArea.add(calendar);
+        opened("calendar", new Runnable() { public void run() { calendar.refreshCalendar(); } });
     }
 
     /**
      * Shows the Tasks page with a TaskPanel.
      */
     private void showTasks() {
-        clearContent();
-        TaskPanel tasksPanel = new TaskPanel(currentUser, 500, 350);
+        currentPage = new Runnable() { public void run() { showTasks(); } };
+        if (reopen("tasks")) return;
+        final TaskPanel tasksPanel = new TaskPanel(currentUser, 500, 350);
         addObject(tasksPanel, 500, 300);
-        contentArea.add(tasksPanel);
+        opened("tasks", new Runnable() { public void run() { tasksPanel.refreshTasks(); } });
     }
 
     /**
      * Shows the Notes page with a NotesPanel.
      */
     private void showNotes() {
-        clearContent();
-        NotesPanel notesPanel = new NotesPanel(currentUser, 500, 350);
+        currentPage = new Runnable() { public void run() { showNotes(); } };
+        if (reopen("notes")) return;
+        final NotesPanel notesPanel = new NotesPanel(currentUser, 500, 350);
         addObject(notesPanel, 500, 300);
-        contentArea.add(notesPanel);
+        opened("notes", new Runnable() { public void run() { notesPanel.displayNotes(); } });
     }
-}
-
 
+    /**
+     * Shows the Activity page with a year heatmap of tasks, assignments and events.
+     */
+    private void showActivity() {
+        currentPage = new Runnable() { public void run() { showActivity(); } };
+        if (reopen("activity")) return;
+        ActivityPanel activityPanel = new ActivityPanel(currentUser, 500, 350);
+        addObject(activityPanel, 500, 300);
+        opened("activity", null);
+    }
+}
@@ -10,6 +10,9 @@ public class DataManager {
     /** File path where user data is stored */
     private static final String FILE_PATH = "users.dat";
 
+    /** Directory under which per-user data files (note history, etc.) are stored */
+    private static final String USER_DATA_DIR = "userdata";
+
     /**
      * Saves the given list of users to disk.
      *
@@ -40,6 +43,21 @@ public class DataManager {
             return new ArrayList<>();
         }
     }
-}
-
 
+    /**
+     * Returns the directory holding one area of a user's data, creating it if needed.
+     * Data that is too large or too cold to keep in users.dat lives here,
+     * e.g. {@code getUserDir(user, "notes")}.
+     *
+     * @param user The user the data belongs to
+     * @param area Name of the data area (sub-directory)
+     * @return The directory for that area
+     */
+    public static File getUserDir(User user, String area) {
+        String email = user.getEmail();
+        String key = email.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(email.hashCode());
+        File dir = new File(new File(USER_DATA_DIR, key), area);
+        dir.mkdirs();
+        return dir;
+    }
+}
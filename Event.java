@@ -1,17 +1,99 @@
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
 /**
- * Represents a basic event with a name.
+ * Represents a calendar event with a name and a time range.
+ *
+ * Times are wall-clock minutes since 1970-01-01 00:00 (no time zone), so
+ * minute {@code epochDay * MINUTES_PER_DAY} is midnight at the start of that
+ * day. The range is half-open: an event from 9:00 to 10:00 ends at 10:00
+ * and does not overlap one starting at 10:00. All-day events cover whole days.
+ * Events are stored in the user's {@link CalendarEventStore}.
  */
-public class Event {
+public class Event implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Number of minutes in a day */
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Category bit: the School calendar */
+    public static final int SCHOOL = 1;
+
+    /** Category bit: the Personal calendar */
+    public static final int PERSONAL = 2;
+
+    /** Category bit: the Work calendar */
+    public static final int WORK = 4;
+
+    /** Every category bit */
+    public static final int ALL_CATEGORIES = SCHOOL | PERSONAL | WORK;
+
+    /** Unique id assigned by the event store */
+    private long id;
+
     /** The name of the event */
     private String name;
 
+    /** Start of the event in minutes (inclusive) */
+    private long start;
+
+    /** End of the event in minutes (exclusive) */
+    private long end;
+
+    /** Whether the event covers whole days rather than a time range */
+    private boolean allDay;
+
+    /** How the event repeats, or null for a one-off event */
+    private RecurrenceRule rule;
+
+    /** Calendars the event belongs to, as category bits (0 in events saved before categories) */
+    private int categories;
+
+    /** For a generated occurrence, the recurring event it belongs to (never stored) */
+    private transient Event series;
+
     /**
-     * Constructs a new Event with the given name.
+     * Constructs a timed event.
      *
-     * @param name The name of the event
+     * @param name  The name of the event
+     * @param start Start time in minutes since 1970-01-01 00:00
+     * @param end   End time in minutes (exclusive); must be after start
+     */
+    public Event(String name, long start, long end) {
+        this(name, start, end, false);
+    }
+
+    /**
+     * Constructs an event with an explicit all-day flag.
      */
-    public Event(String name) {
+    private Event(String name, long start, long end, boolean allDay) {
+        if (end <= start) throw new IllegalArgumentException("Event must end after it starts");
         this.name = name;
+        this.start = start;
+        this.end = end;
+        this.allDay = allDay;
+    }
+
+    /**
+     * Creates an all-day event covering one or more whole days.
+     *
+     * @param name     The name of the event
+     * @param firstDay First day, as days since 1970-01-01
+     * @param lastDay  Last day (inclusive)
+     * @return The new event
+     */
+    public static Event allDay(String name, long firstDay, long lastDay) {
+        return new Event(name, firstDay * MINUTES_PER_DAY, (lastDay + 1) * MINUTES_PER_DAY, true);
+    }
+
+    /**
+     * Converts a date and time to event minutes.
+     *
+     * @param dateTime The local date and time
+     * @return Minutes since 1970-01-01 00:00
+     */
+    public static long toMinutes(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay() * MINUTES_PER_DAY + dateTime.getHour() * 60 + dateTime.getMinute();
     }
 
     /**
@@ -22,5 +104,155 @@ public class Event {
     public String getName() {
         return name;
     }
-}
 
+    /** Returns the unique id of the event (0 until stored) */
+    public long getId() {
+        return id;
+    }
+
+    /** Sets the id; called by the event store when the event is added */
+    void setId(long id) {
+        this.id = id;
+    }
+
+    /** Returns the start time in minutes */
+    public long getStart() {
+        return start;
+    }
+
+    /** Returns the end time in minutes (exclusive) */
+    public long getEnd() {
+        return end;
+    }
+
+    /** Returns true if the event covers whole days */
+    public boolean isAllDay() {
+        return allDay;
+    }
+
+    /** Returns the day the event starts on, as days since 1970-01-01 */
+    public long getFirstDay() {
+        return Math.floorDiv(start, MINUTES_PER_DAY);
+    }
+
+    /** Returns the last day the event covers, as days since 1970-01-01 */
+    public long getLastDay() {
+        return Math.floorDiv(end - 1, MINUTES_PER_DAY);
+    }
+
+    /** Returns true if the event covers more than one day */
+    public boolean isMultiDay() {
+        return getLastDay() > getFirstDay();
+    }
+
+    /**
+     * Returns the calendars the event belongs to as category bits.
+     * Events saved before categories existed count as Personal.
+     *
+     * @return A mask of SCHOOL, PERSONAL and WORK bits
+     */
+    public int getCategories() {
+        return categories != 0 ? categories : PERSONAL;
+    }
+
+    /**
+     * Sets the calendars the event belongs to.
+     * Must be called before the event is added to the store.
+     *
+     * @param categories A mask of SCHOOL, PERSONAL and WORK bits
+     */
+    public void setCategories(int categories) {
+        this.categories = categories & ALL_CATEGORIES;
+    }
+
+    /**
+     * Returns true if the event belongs to any of the given calendars.
+     *
+     * @param mask Category bits to test
+     * @return true if the event has at least one of those bits
+     */
+    public boolean inCategories(int mask) {
+        return (getCategories() & mask) != 0;
+    }
+
+    /**
+     * Returns the display name of a single category bit.
+     *
+     * @param category SCHOOL, PERSONAL or WORK
+     * @return e.g. "School"
+     */
+    public static String categoryName(int category) {
+        return category == SCHOOL ? "School" : category == WORK ? "Work" : "Personal";
+    }
+
+    /** Returns the repeat rule, or null for a one-off event */
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Makes the event repeat. The event's own time range becomes the first occurrence.
+     * Must be called before the event is added to the store.
+     *
+     * @param rule How the event repeats, or null for a one-off event
+     */
+    public void setRule(RecurrenceRule rule) {
+        this.rule = rule;
+    }
+
+    /** Returns true if the event repeats (including generated occurrences) */
+    public boolean isRecurring() {
+        return rule != null;
+    }
+
+    /** Returns the recurring event an occurrence was generated from, or null */
+    public Event getSeries() {
+        return series;
+    }
+
+    /**
+     * Creates the occurrence of this recurring event that starts on a given day,
+     * at the same time of day and with the same length as the first one.
+     *
+     * @param epochDay The day the occurrence starts
+     * @return The generated occurrence
+     */
+    Event occurrenceOn(long epochDay) {
+        long offset = (epochDay - getFirstDay()) * MINUTES_PER_DAY;
+        Event occurrence = new Event(name, start + offset, end + offset, allDay);
+        occurrence.id = id;
+        occurrence.rule = rule;
+        occurrence.categories = categories;
+        occurrence.series = this;
+        return occurrence;
+    }
+
+    /**
+     * Returns true if this event's time range overlaps another's.
+     *
+     * @param other The other event
+     * @return true if the two ranges share at least one minute
+     */
+    public boolean overlaps(Event other) {
+        return start < other.end && other.start < end;
+    }
+
+    /**
+     * Formats the event's time range for display, e.g. "09:00-10:30".
+     * All-day events return an empty string.
+     *
+     * @return The time range text
+     */
+    public String getTimeText() {
+        if (allDay) return "";
+        return formatTime(start) + "-" + formatTime(end);
+    }
+
+    /**
+     * Formats minutes as HH:MM within their day.
+     */
+    private static String formatTime(long minutes) {
+        int minuteOfDay = (int) Math.floorMod(minutes, (long) MINUTES_PER_DAY);
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
@@ -2,35 +2,50 @@ import greenfoot.*;
 
 /**
  * EventItem represents a single event displayed in an EventPopup.
- * Shows the event name with a colored dot and a clickable delete button.
+ * Shows the event's time and name with a colored dot (red if it overlaps another
+ * timed event) and a clickable delete button.
  * When the delete button is clicked, the event is removed from the parent CalendarDay
- * and the popup is refreshed.
+ * and the popup is refreshed. EventPopup pools these items and rebinds them
+ * to other events as its list scrolls.
  */
 public class EventItem extends Actor {
 
-    private String eventName;       // Name of the event
+    private Event event;            // The event shown by this item
     private CalendarDay parentDay;  // The CalendarDay this event belongs to
     private EventPopup parentPopup; // The EventPopup containing this item
+    private InputDispatcher.Region clickRegion; // Set while an InputDispatcher delivers the clicks
 
     /**
      * Constructor for EventItem.
      *
-     * @param eventName   The name of the event
+     * @param event       The event to display
      * @param parentDay   The CalendarDay this event is associated with
      * @param parentPopup The EventPopup displaying this event
      */
-    public EventItem(String eventName, CalendarDay parentDay, EventPopup parentPopup) {
-        this.eventName = eventName;
+    public EventItem(Event event, CalendarDay parentDay, EventPopup parentPopup) {
+        this.event = event;
         this.parentDay = parentDay;
         this.parentPopup = parentPopup;
         updateImage();
     }
 
+    /**
+     * Shows another event in this item, e.g. when the popup's list scrolls.
+     * Always redraws, since the event's conflict marker may have changed.
+     *
+     * @param event The event to display
+     */
+    public void bind(Event event) {
+        this.event = event;
+        updateImage();
+    }
+
     /**
      * Updates the visual representation of the EventItem.
      * Draws the background, border, event dot, event text, and delete button.
      */
     private void updateImage() {
+        long start = Profiler.start();
         GreenfootImage img = new GreenfootImage(300, 40);
 
         // Background
@@ -41,19 +56,18 @@ public class EventItem extends Actor {
         img.setColor(new greenfoot.Color(200, 200, 200));
         img.drawRect(0, 0, 299, 39);
 
-        // Event dot
-        img.setColor(new greenfoot.Color(0, 0, 128));
+        // Event dot in the calendar's color, red if the event clashes with another timed event
+        boolean conflict = !parentDay.getUser().getEventStore().getConflicts(event).isEmpty();
+        img.setColor(conflict ? new greenfoot.Color(200, 0, 0) : CalendarDay.categoryColor(event.getCategories()));
         img.fillOval(10, 15, 10, 10);
 
-        // Event text
+        // Event text, prefixed with its time range if it has one
         img.setColor(new greenfoot.Color(0, 0, 0));
-        img.setFont(new Font("Arial", false, false, 14));
-
-        String displayText = eventName;
-        if (displayText.length() > 28) {
-            displayText = displayText.substring(0, 28) + "...";
-        }
-        img.drawString(displayText, 30, 25);
+        Font textFont = new Font("Arial", false, false, 14);
+        img.setFont(textFont);
+        String text = event.isAllDay() ? event.getName() : event.getTimeText() + "  " + event.getName();
+        if (event.isRecurring()) text = "↻ " + text;
+        img.drawString(TextLayout.ellipsize(text, textFont, 235), 30, 25); // Stop short of the delete button
 
         // Delete button
         img.setColor(new greenfoot.Color(200, 0, 0));
@@ -63,27 +77,65 @@ public class EventItem extends Actor {
         img.drawString("×", 276, 25);
 
         setImage(img);
+        Profiler.stop(this, "updateImage", start);
+    }
+
+    /**
+     * Registers the item with the world's InputDispatcher, if it has one,
+     * with the delete button (x = 271 to 289) as a sub-region.
+     */
+    protected void addedToWorld(World world) {
+        clickRegion = InputDispatcher.attach(this, null);
+        if (clickRegion != null) {
+            InputDispatcher input = InputDispatcher.of(world);
+            input.removeChildren(clickRegion);
+            input.add(clickRegion, 271, 0, 19, getImage().getHeight(), new InputDispatcher.Handler() {
+                public void clicked(int x, int y) {
+                    deleteEvent();
+                }
+            });
+        }
     }
 
     /**
-     * Act method checks for mouse clicks on this EventItem.
-     * If the delete button area is clicked, removes the event from the parent CalendarDay,
-     * refreshes the popup, and plays a delete sound.
+     * Act method checks for mouse clicks on this EventItem, unless an
+     * InputDispatcher delivers the clicks.
      */
     public void act() {
-        if (Greenfoot.mouseClicked(this)) {
+        long start = Profiler.start();
+        if (clickRegion == null && Greenfoot.mouseClicked(this)) {
             MouseInfo mouse = Greenfoot.getMouseInfo();
             if (mouse != null) {
                 int relX = mouse.getX() - (getX() - 150);
 
                 // Check if clicked on delete button (x = 270 to 290)
                 if (relX > 270 && relX < 290) {
-                    parentDay.removeEvent(eventName);
-                    parentPopup.refreshPopup();
-                    playSound("delete.wav");
+                    deleteEvent();
                 }
             }
         }
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Removes the event from the parent CalendarDay, refreshes the popup,
+     * and plays a delete sound. For a recurring event the user chooses
+     * between deleting this occurrence and the whole series.
+     */
+    private void deleteEvent() {
+        if (event.isRecurring()) {
+            String answer = Greenfoot.ask("Delete every occurrence? (yes / leave blank for just this day):");
+            if (answer == null) return;
+            if (answer.trim().equalsIgnoreCase("yes")) {
+                parentDay.removeEvent(event);
+            } else {
+                parentDay.removeOccurrence(event);
+            }
+        } else {
+            parentDay.removeEvent(event);
+        }
+        parentPopup.refreshPopup();
+        playSound("delete.wav");
     }
 
     /**
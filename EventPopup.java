@@ -1,29 +1,43 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.List;
 import greenfoot.*;
 
 /**
  * EventPopup represents a popup window for a specific day in the calendar.
  * It allows the user to view, add, and delete events for that day.
  * Includes a close button and automatically closes when clicking outside the popup.
+ * The popup keeps a list of the actors it adds and only ever removes those;
+ * a {@link ModalOverlay} underneath blocks the page and reports outside clicks.
+ * The event list scrolls: a fixed pool of EventItems is rebound to the
+ * visible slice of the day's events, so busy days cost the same to show.
  */
 public class EventPopup extends Actor {
 
+    private static final int VISIBLE_ROWS = 6;   // Event items that fit in the popup
+    private static final int ROW_SPACING = 45;   // Vertical distance between event items
+
     private int day;                   // The day of the month this popup corresponds to
-    private ArrayList<String> events;  // List of events for this day
     private CalendarDay parentDay;     // The CalendarDay this popup is associated with
     private int width = 350;           // Popup width
     private int height = 400;          // Popup height
+    private ModalOverlay overlay;      // Dims the page and catches clicks outside the popup
+    private ArrayList<Actor> children = new ArrayList<>();    // Every actor the popup added
+    private List<Event> events;        // The day's events, read on each refresh
+    private ScrollModel scroll = new ScrollModel(VISIBLE_ROWS);   // Which events are visible
+    private EventItem[] items = new EventItem[VISIBLE_ROWS];     // Pooled rows, created on first use
+    private ButtonActor upButton, downButton; // Scroll buttons, shown only when needed
+    private TextLabel emptyMsg;        // Shown when the day has no events
 
     /**
      * Constructor for EventPopup.
      *
      * @param day       The day number
-     * @param events    List of events for this day
      * @param parentDay The CalendarDay this popup belongs to
      */
-    public EventPopup(int day, ArrayList<String> events, CalendarDay parentDay) {
+    public EventPopup(int day, CalendarDay parentDay) {
         this.day = day;
-        this.events = events;
         this.parentDay = parentDay;
         createPopup();
     }
@@ -66,6 +80,29 @@ public class EventPopup extends Actor {
         setImage(img);
     }
 
+    /**
+     * Opens the popup in the center of the world, above a modal overlay.
+     *
+     * @param world The Greenfoot world
+     */
+    public void open(World world) {
+        overlay = new ModalOverlay(world.getWidth(), world.getHeight()) {
+            public void onDismiss() {
+                closePopup();
+            }
+        };
+        world.addObject(overlay, world.getWidth() / 2, world.getHeight() / 2);
+        world.addObject(this, world.getWidth() / 2, world.getHeight() / 2);
+    }
+
+    /**
+     * Adds an actor to the world as part of this popup.
+     */
+    private void addChild(World world, Actor child, int x, int y) {
+        world.addObject(child, x, y);
+        children.add(child);
+    }
+
     /**
      * Called when added to the world.
      * Adds the "+ Add Event" button and displays existing events.
@@ -80,73 +117,230 @@ public class EventPopup extends Actor {
             public void onClick() {
                 String newEvent = Greenfoot.ask("Enter event name:");
                 if (newEvent != null && !newEvent.trim().isEmpty()) {
-                    parentDay.addEvent(newEvent.trim());
+                    parentDay.addEvent(buildEvent(newEvent.trim()));
                     refreshPopup();
                 }
             }
         };
-        world.addObject(addBtn, getX(), startY);
+        addChild(world, addBtn, getX(), startY);
+
+        // Scroll buttons (added by refreshPopup when the events don't fit)
+        upButton = new ButtonActor("▲", 239, 232, 219, 0, 0, 128, 28, 28) {
+            public void onClick() {
+                if (scroll.scrollBy(-1)) bindVisibleEvents();
+            }
+        };
+        downButton = new ButtonActor("▼", 239, 232, 219, 0, 0, 128, 28, 28) {
+            public void onClick() {
+                if (scroll.scrollBy(1)) bindVisibleEvents();
+            }
+        };
 
         // Display current events
-        displayEvents(world);
+        refreshPopup();
     }
 
     /**
-     * Displays all events for the day inside the popup.
+     * Asks for the time range and length of a new event and builds it.
+     * A blank time makes an all-day event; an unreadable time is treated as blank.
      *
-     * @param world The Greenfoot world
+     * @param name The event name
+     * @return The new event, starting on this popup's day
      */
-    private void displayEvents(World world) {
-        int y = getY() - (height / 2) + 130;
+    private Event buildEvent(String name) {
+        String time = Greenfoot.ask("Time, e.g. 9:00-10:30 (leave blank for all day):");
+        String length = Greenfoot.ask("How many days? (leave blank for 1):");
 
-        if (events.isEmpty()) {
-            TextLabel emptyMsg = new TextLabel(
-                "No events yet",
-                16,
-                new greenfoot.Color(150, 150, 150),
-                250, 30,
-                new greenfoot.Color(0, 0, 0, 0)
-            );
-            world.addObject(emptyMsg, getX(), y);
+        int dayCount = 1;
+        try {
+            if (length != null && !length.trim().isEmpty()) dayCount = Math.max(1, Integer.parseInt(length.trim()));
+        } catch (NumberFormatException e) {
+            // Keep a single day
+        }
+
+        long firstDay = parentDay.getEpochDay();
+        String[] range = time == null ? new String[0] : time.split("-");
+        int startMinute = range.length == 2 ? parseMinuteOfDay(range[0]) : -1;
+        int endMinute = range.length == 2 ? parseMinuteOfDay(range[1]) : -1;
+
+        Event event;
+        if (startMinute < 0 || endMinute < 0) {
+            event = Event.allDay(name, firstDay, firstDay + dayCount - 1);
         } else {
-            for (String event : events) {
-                EventItem item = new EventItem(event, parentDay, this);
-                world.addObject(item, getX(), y);
-                y += 45;
+            long start = firstDay * Event.MINUTES_PER_DAY + startMinute;
+            long end = (firstDay + dayCount - 1) * Event.MINUTES_PER_DAY + endMinute;
+            if (end <= start) end += Event.MINUTES_PER_DAY; // Runs past midnight
+            event = new Event(name, start, end);
+        }
+        event.setRule(askRepeat(firstDay));
+        event.setCategories(askCategories());
+        return event;
+    }
+
+    /**
+     * Asks which calendars a new event belongs to, e.g. "school" or "school, work".
+     * Blank or unrecognised answers put it in the Personal calendar.
+     *
+     * @return The category bits
+     */
+    private int askCategories() {
+        String answer = Greenfoot.ask("Calendar? school / personal / work (leave blank for personal):");
+        if (answer == null) return Event.PERSONAL;
+
+        int categories = 0;
+        for (String part : answer.split(",")) {
+            switch (part.trim().toLowerCase()) {
+                case "school": categories |= Event.SCHOOL; break;
+                case "work":   categories |= Event.WORK; break;
+                case "personal": categories |= Event.PERSONAL; break;
+                default: break;
+            }
+        }
+        return categories != 0 ? categories : Event.PERSONAL;
+    }
+
+    /**
+     * Asks whether a new event repeats and until when.
+     * Blank or unrecognised answers make a one-off event.
+     *
+     * @param firstDay The day of the first occurrence
+     * @return The repeat rule, or null if the event does not repeat
+     */
+    private RecurrenceRule askRepeat(long firstDay) {
+        String repeat = Greenfoot.ask("Repeat? daily / weekly / every 2 weeks / monthly (leave blank for no):");
+        if (repeat == null) return null;
 
-                if (y > getY() + (height / 2) - 30) break; // Avoid overflow
+        RecurrenceRule rule;
+        switch (repeat.trim().toLowerCase()) {
+            case "daily":         rule = new RecurrenceRule(RecurrenceRule.DAILY); break;
+            case "weekly":        rule = new RecurrenceRule(RecurrenceRule.WEEKLY); break;
+            case "every 2 weeks": rule = new RecurrenceRule(RecurrenceRule.WEEKLY, 2); break;
+            case "monthly":       rule = new RecurrenceRule(RecurrenceRule.MONTHLY); break;
+            default:              return null;
+        }
+
+        String until = Greenfoot.ask("Repeat until? YYYY-MM-DD (leave blank for no end):");
+        if (until != null && !until.trim().isEmpty()) {
+            try {
+                rule.setUntil(Math.max(firstDay, LocalDate.parse(until.trim()).toEpochDay()));
+            } catch (DateTimeParseException e) {
+                // Keep repeating with no end
             }
         }
+        return rule;
     }
 
     /**
-     * Refreshes the popup content after adding or removing events.
+     * Parses a time like "9:30" or "14:00" into minutes after midnight.
+     *
+     * @param text The time text
+     * @return Minutes after midnight, or -1 if the text is not a valid time
+     */
+    private static int parseMinuteOfDay(String text) {
+        String[] parts = text.trim().split(":");
+        try {
+            int hour = Integer.parseInt(parts[0].trim());
+            int minute = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
+            if (parts.length > 2 || hour < 0 || hour > 24 || minute < 0 || minute > 59) return -1;
+            if (hour == 24 && minute > 0) return -1;
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Re-reads the day's events and refreshes the list, keeping the scroll
+     * position where possible. Shows an empty message if there are no events.
      */
     public void refreshPopup() {
         World world = getWorld();
         if (world == null) return;
 
-        // Remove all existing event items
-        for (EventItem item : world.getObjects(EventItem.class)) {
-            world.removeObject(item);
+        events = parentDay.getEvents();
+        scroll.setTotal(events.size());
+
+        if (events.isEmpty()) {
+            if (emptyMsg == null) {
+                emptyMsg = new TextLabel(
+                    "No events yet",
+                    16,
+                    new greenfoot.Color(150, 150, 150),
+                    250, 30,
+                    new greenfoot.Color(0, 0, 0, 0)
+                );
+            }
+            showIf(world, emptyMsg, true, getX(), getY() - (height / 2) + 130);
+        } else if (emptyMsg != null) {
+            showIf(world, emptyMsg, false, 0, 0);
+        }
+
+        // Scroll buttons beside the add button, only when the events don't fit
+        int buttonY = getY() - (height / 2) + 80;
+        showIf(world, upButton, scroll.isScrollable(), getX() + 110, buttonY);
+        showIf(world, downButton, scroll.isScrollable(), getX() + 145, buttonY);
+
+        bindVisibleEvents();
+    }
+
+    /**
+     * Scrolls the event list with the arrow keys.
+     */
+    private void pollScroll() {
+        if (scroll.pollArrowKeys()) {
+            bindVisibleEvents();
         }
+    }
+
+    /**
+     * Binds the pooled EventItems to the visible events.
+     * Items are created on first use and reused afterwards; rows past the
+     * end of the list are removed from the world.
+     */
+    private void bindVisibleEvents() {
+        World world = getWorld();
+        if (world == null) return;
+
+        int firstY = getY() - (height / 2) + 130;
+        for (int row = 0; row < items.length; row++) {
+            int index = scroll.getFirst() + row;
+            EventItem item = items[row];
+
+            if (index >= events.size()) {
+                if (item != null) showIf(world, item, false, 0, 0);
+                continue;
+            }
 
-        // Remove empty message if present
-        for (TextLabel label : world.getObjects(TextLabel.class)) {
-            if (label.getY() > getY() - 100 && label.getY() < getY() + 100) {
-                world.removeObject(label);
+            if (item == null) {
+                item = new EventItem(events.get(index), parentDay, this);
+                items[row] = item;
+            } else {
+                item.bind(events.get(index));
             }
+            showIf(world, item, true, getX(), firstY + row * ROW_SPACING);
         }
+    }
 
-        displayEvents(world);
+    /**
+     * Adds or removes one of the popup's actors depending on a condition.
+     */
+    private void showIf(World world, Actor actor, boolean show, int x, int y) {
+        if (show && actor.getWorld() == null) {
+            addChild(world, actor, x, y);
+        } else if (!show && actor.getWorld() != null) {
+            world.removeObject(actor);
+            children.remove(actor);
+        }
     }
 
     /**
-     * Handles mouse interactions for closing the popup.
-     * Also detects clicks outside the popup to close it.
+     * Handles clicks on the close button and scrolling with the arrow keys.
+     * Clicks outside the popup are handled by the overlay.
      */
     public void act() {
-        // Check if clicked on close button
+        long start = Profiler.start();
+        pollScroll();
+
         if (Greenfoot.mouseClicked(this)) {
             MouseInfo mouse = Greenfoot.getMouseInfo();
             if (mouse != null) {
@@ -158,53 +352,19 @@ public class EventPopup extends Actor {
                 }
             }
         }
-
-        // Close popup if clicked outside
-        if (Greenfoot.mouseClicked(null) && !Greenfoot.mouseClicked(this)) {
-            boolean clickedOnChild = false;
-            World world = getWorld();
-
-            if (world != null) {
-                for (ButtonActor btn : world.getObjects(ButtonActor.class)) {
-                    if (Greenfoot.mouseClicked(btn)) clickedOnChild = true;
-                }
-                for (EventItem item : world.getObjects(EventItem.class)) {
-                    if (Greenfoot.mouseClicked(item)) clickedOnChild = true;
-                }
-            }
-
-            if (!clickedOnChild) closePopup();
-        }
+        Profiler.stop(this, "act", start);
     }
 
     /**
-     * Closes the popup and removes all associated elements (events, buttons, labels).
+     * Closes the popup, removing itself, its overlay and every actor it added.
      */
-    private void closePopup() {
+    public void closePopup() {
         World world = getWorld();
-        if (world != null) {
-            // Remove event items
-            for (EventItem item : world.getObjects(EventItem.class)) {
-                world.removeObject(item);
-            }
-
-            // Remove buttons and labels within popup bounds
-            for (ButtonActor btn : world.getObjects(ButtonActor.class)) {
-                if (Math.abs(btn.getX() - getX()) < width / 2 &&
-                    Math.abs(btn.getY() - getY()) < height / 2) {
-                    world.removeObject(btn);
-                }
-            }
-
-            for (TextLabel label : world.getObjects(TextLabel.class)) {
-                if (Math.abs(label.getX() - getX()) < width / 2 &&
-                    Math.abs(label.getY() - getY()) < height / 2) {
-                    world.removeObject(label);
-                }
-            }
+        if (world == null) return;
 
-            // Remove popup itself
-            world.removeObject(this);
-        }
+        world.removeObjects(children);
+        children.clear();
+        if (overlay != null) world.removeObject(overlay);
+        world.removeObject(this);
     }
 }
@@ -0,0 +1,579 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IcsCodec reads and writes calendar events as iCalendar (.ics) files,
+ * e.g. school timetables exported from another calendar.
+ *
+ * Both directions stream line by line: the reader only ever holds the
+ * VEVENT it is currently reading, and the writer reads the stored events
+ * one month segment at a time and writes each as soon as it is formatted. An import adds every event to the user's
+ * {@link CalendarEventStore} inside one batch, so each month segment is
+ * written once at the end rather than once per event.
+ *
+ * Supported: VEVENT with SUMMARY, DTSTART/DTEND (dates, floating times,
+ * UTC times and TZID times, which are converted to local time), DURATION,
+ * RRULE (DAILY, WEEKLY with BYDAY, MONTHLY, YEARLY; INTERVAL, UNTIL, COUNT)
+ * EXDATE and CATEGORIES (School, Personal and Work map to the dashboard's
+ * calendars). Other components and properties are skipped. Events whose
+ * repeat rule cannot be represented are imported as a single occurrence;
+ * the {@link ImportResult} says how many there were.
+ */
+public class IcsCodec {
+
+    /** Longest line allowed in an .ics file, in bytes, before it must be folded */
+    private static final int MAX_LINE_OCTETS = 75;
+
+    /** iCalendar weekday codes, indexed like RecurrenceRule weekdays (0 = Sunday) */
+    private static final String[] WEEKDAYS = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+
+    /** Returned by parseTime for a value that could not be read */
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private IcsCodec() {}
+
+    /**
+     * The properties of the VEVENT being read.
+     */
+    private static class PendingEvent {
+        String summary = "";
+        String start, startParams;
+        String end, endParams;
+        String duration;
+        String rrule;
+        List<String[]> exdates = new ArrayList<>(); // [params, value] per EXDATE line
+        int categories;                             // Category bits from CATEGORIES lines
+    }
+
+    /**
+     * What an import did.
+     */
+    public static class ImportResult {
+        private int imported;                       // Events added to the calendar
+        private int unsupportedRules;               // Of those, events whose RRULE was dropped
+
+        /** Returns the number of events added to the calendar */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * Returns the number of repeating events whose rule could not be
+         * represented, which were imported as their first occurrence only.
+         */
+        public int getUnsupportedRules() {
+            return unsupportedRules;
+        }
+    }
+
+    /**
+     * Imports every event in an .ics file into a user's calendar.
+     *
+     * @param user The user to import into
+     * @param file The .ics file
+     * @return How many events were imported
+     * @throws IOException If the file cannot be read
+     */
+    public static ImportResult importFile(User user, File file) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            return importFrom(user, in);
+        }
+    }
+
+    /**
+     * Imports every event read from a stream of .ics text into a user's calendar.
+     *
+     * @param user The user to import into
+     * @param in   Reader positioned at the start of the calendar
+     * @return How many events were imported
+     * @throws IOException If reading fails
+     */
+    public static ImportResult importFrom(User user, BufferedReader in) throws IOException {
+        CalendarEventStore store = user.getEventStore();
+        ImportResult result = new ImportResult();
+        store.beginBatch();
+        try {
+            PendingEvent pending = null;
+            int nested = 0;                 // Depth of components inside the VEVENT (e.g. VALARM)
+            StringBuilder line = new StringBuilder();
+            String next = in.readLine();
+
+            while (next != null) {
+                // Unfold: lines starting with a space or tab continue the previous one
+                line.setLength(0);
+                line.append(next);
+                while ((next = in.readLine()) != null && !next.isEmpty()
+                        && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+                    line.append(next, 1, next.length());
+                }
+
+                String content = line.toString();
+                int colon = valueStart(content);
+                if (colon < 0) continue;
+                int semicolon = content.indexOf(';');
+                int nameEnd = semicolon >= 0 && semicolon < colon ? semicolon : colon;
+                String name = content.substring(0, nameEnd).toUpperCase();
+                String params = nameEnd < colon ? content.substring(nameEnd + 1, colon) : "";
+                String value = content.substring(colon + 1);
+
+                if (name.equals("BEGIN")) {
+                    if (pending != null) nested++;
+                    else if (value.equalsIgnoreCase("VEVENT")) pending = new PendingEvent();
+                } else if (name.equals("END")) {
+                    if (pending == null) continue;
+                    if (nested > 0) {
+                        nested--;
+                    } else {
+                        Event event = toEvent(pending, result);
+                        if (event != null) {
+                            store.addEvent(event);
+                            result.imported++;
+                        }
+                        pending = null;
+                    }
+                } else if (pending != null && nested == 0) {
+                    switch (name) {
+                        case "SUMMARY":  pending.summary = unescape(value); break;
+                        case "DTSTART":  pending.start = value; pending.startParams = params; break;
+                        case "DTEND":    pending.end = value; pending.endParams = params; break;
+                        case "DURATION": pending.duration = value; break;
+                        case "RRULE":    pending.rrule = value; break;
+                        case "EXDATE":   pending.exdates.add(new String[] { params, value }); break;
+                        case "CATEGORIES": pending.categories |= parseCategories(value); break;
+                        default:         break;
+                    }
+                }
+            }
+        } finally {
+            store.commitBatch();
+        }
+        return result;
+    }
+
+    /**
+     * Writes all of a user's events to an .ics file.
+     *
+     * @param user The user whose calendar to export
+     * @param file The file to write
+     * @return Number of events written
+     * @throws IOException If the file cannot be written
+     */
+    public static int exportFile(User user, File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            return exportTo(user, out);
+        }
+    }
+
+    /**
+     * Writes all of a user's events as .ics text. Recurring events are
+     * written once with their RRULE and EXDATEs.
+     *
+     * @param user The user whose calendar to export
+     * @param out  Where to write the calendar
+     * @return Number of events written
+     * @throws IOException If writing fails
+     */
+    public static int exportTo(User user, final Writer out) throws IOException {
+        final String stamp = formatDateTime(LocalDateTime.now(ZoneOffset.UTC)) + "Z";
+        final StringBuilder buf = new StringBuilder();
+
+        writeLine(out, "BEGIN:VCALENDAR", buf);
+        writeLine(out, "VERSION:2.0", buf);
+        writeLine(out, "PRODID:-//Productivity Dashboard//Calendar//EN", buf);
+        writeLine(out, "CALSCALE:GREGORIAN", buf);
+
+        final int[] count = new int[1];
+        user.getEventStore().forEachStoredEvent(new CalendarEventStore.EventSink() {
+            public void event(Event event) throws IOException {
+                writeEvent(out, event, stamp, buf);
+                count[0]++;
+            }
+        });
+
+        writeLine(out, "END:VCALENDAR", buf);
+        return count[0];
+    }
+
+    /**
+     * Writes one event as a VEVENT.
+     */
+    private static void writeEvent(Writer out, Event event, String stamp, StringBuilder buf) throws IOException {
+        writeLine(out, "BEGIN:VEVENT", buf);
+        writeLine(out, "UID:" + event.getId() + "@productivity-dashboard", buf);
+        writeLine(out, "DTSTAMP:" + stamp, buf);
+        if (event.isAllDay()) {
+            writeLine(out, "DTSTART;VALUE=DATE:" + formatDate(event.getFirstDay()), buf);
+            writeLine(out, "DTEND;VALUE=DATE:" + formatDate(event.getLastDay() + 1), buf);
+        } else {
+            writeLine(out, "DTSTART:" + formatMinutes(event.getStart()), buf);
+            writeLine(out, "DTEND:" + formatMinutes(event.getEnd()), buf);
+        }
+        writeLine(out, "SUMMARY:" + escape(event.getName()), buf);
+        writeLine(out, "CATEGORIES:" + formatCategories(event.getCategories()), buf);
+
+        RecurrenceRule rule = event.getRule();
+        if (rule != null) {
+            writeLine(out, "RRULE:" + formatRule(rule, event.isAllDay()), buf);
+            long timeOfDay = event.getStart() - event.getFirstDay() * Event.MINUTES_PER_DAY;
+            for (long day : rule.getExceptions()) {
+                if (event.isAllDay()) {
+                    writeLine(out, "EXDATE;VALUE=DATE:" + formatDate(day), buf);
+                } else {
+                    writeLine(out, "EXDATE:" + formatMinutes(day * Event.MINUTES_PER_DAY + timeOfDay), buf);
+                }
+            }
+        }
+        writeLine(out, "END:VEVENT", buf);
+    }
+
+    /**
+     * Builds an event from a finished VEVENT, or returns null if it has no usable start.
+     * A repeat rule that cannot be represented is dropped and counted in the result.
+     */
+    private static Event toEvent(PendingEvent p, ImportResult result) {
+        if (p.start == null) return null;
+        boolean allDay = isDate(p.start, p.startParams);
+        long start = parseTime(p.start, p.startParams);
+        if (start == INVALID) return null;
+
+        long end = p.end != null ? parseTime(p.end, p.endParams) : INVALID;
+        if (end == INVALID && p.duration != null) {
+            long length = parseDuration(p.duration);
+            if (length != INVALID) end = start + length;
+        }
+
+        Event event;
+        if (allDay) {
+            long firstDay = Math.floorDiv(start, Event.MINUTES_PER_DAY);
+            long lastDay = end == INVALID ? firstDay : Math.floorDiv(end - 1, Event.MINUTES_PER_DAY);
+            event = Event.allDay(p.summary, firstDay, Math.max(firstDay, lastDay));
+        } else {
+            // iCalendar allows zero-length events; give them a minute so they can be shown
+            if (end == INVALID || end <= start) end = start + 1;
+            event = new Event(p.summary, start, end);
+        }
+        event.setCategories(p.categories);
+
+        if (p.rrule != null) {
+            RecurrenceRule rule = parseRule(p.rrule, event.getFirstDay());
+            if (rule == null) {
+                result.unsupportedRules++;
+            } else {
+                for (String[] exdate : p.exdates) {
+                    for (String value : exdate[1].split(",")) {
+                        long time = parseTime(value.trim(), exdate[0]);
+                        if (time != INVALID) rule.addException(Math.floorDiv(time, Event.MINUTES_PER_DAY));
+                    }
+                }
+                event.setRule(rule);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Converts an RRULE value to a RecurrenceRule, or returns null if it uses
+     * parts this calendar cannot repeat by (e.g. "second Tuesday of the month").
+     */
+    private static RecurrenceRule parseRule(String value, long firstDay) {
+        String freq = null;
+        int interval = 1, count = 0, weekdays = 0;
+        String until = null;
+
+        for (String part : value.split(";")) {
+            int eq = part.indexOf('=');
+            if (eq < 0) continue;
+            String key = part.substring(0, eq).toUpperCase();
+            String val = part.substring(eq + 1).toUpperCase();
+            try {
+                switch (key) {
+                    case "FREQ":     freq = val; break;
+                    case "INTERVAL": interval = Integer.parseInt(val); break;
+                    case "COUNT":    count = Integer.parseInt(val); break;
+                    case "UNTIL":    until = val; break;
+                    case "WKST":     break;
+                    case "BYDAY":
+                        for (String day : val.split(",")) {
+                            int index = indexOf(WEEKDAYS, day);
+                            if (index < 0) return null;    // e.g. 2TU, -1FR
+                            weekdays |= 1 << index;
+                        }
+                        break;
+                    default:         return null;          // BYMONTHDAY, BYSETPOS, ...
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (freq == null || interval < 1) return null;
+
+        RecurrenceRule rule;
+        switch (freq) {
+            case "DAILY":   rule = new RecurrenceRule(RecurrenceRule.DAILY, interval); break;
+            case "WEEKLY":  rule = new RecurrenceRule(RecurrenceRule.WEEKLY, interval); break;
+            case "MONTHLY": rule = new RecurrenceRule(RecurrenceRule.MONTHLY, interval); break;
+            case "YEARLY":  rule = new RecurrenceRule(RecurrenceRule.MONTHLY, interval * 12); break;
+            default:        return null;
+        }
+        if (weekdays != 0) {
+            if (rule.getFrequency() != RecurrenceRule.WEEKLY) return null;
+            rule.setWeekdays(weekdays);
+        }
+        if (until != null) {
+            long time = parseTime(until, "");
+            if (time == INVALID) return null;
+            rule.setUntil(Math.floorDiv(time, Event.MINUTES_PER_DAY));
+        }
+        if (count > 0) rule.limitToCount(firstDay, count);
+        return rule;
+    }
+
+    /**
+     * Formats a rule as an RRULE value.
+     */
+    private static String formatRule(RecurrenceRule rule, boolean allDay) {
+        StringBuilder text = new StringBuilder("FREQ=");
+        text.append(rule.getFrequency() == RecurrenceRule.DAILY ? "DAILY"
+                  : rule.getFrequency() == RecurrenceRule.WEEKLY ? "WEEKLY" : "MONTHLY");
+        if (rule.getInterval() > 1) text.append(";INTERVAL=").append(rule.getInterval());
+        if (rule.getWeekdays() != 0) {
+            text.append(";BYDAY=");
+            String separator = "";
+            for (int d = 0; d < 7; d++) {
+                if ((rule.getWeekdays() & (1 << d)) != 0) {
+                    text.append(separator).append(WEEKDAYS[d]);
+                    separator = ",";
+                }
+            }
+        }
+        if (rule.getUntil() != Long.MAX_VALUE) {
+            // The whole last day is included, so a floating end-of-day UNTIL covers any start time
+            text.append(";UNTIL=").append(formatDate(rule.getUntil())).append(allDay ? "" : "T235959");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns true if a DTSTART/DTEND value is a date rather than a date-time.
+     */
+    private static boolean isDate(String value, String params) {
+        return params.toUpperCase().contains("VALUE=DATE") && !params.toUpperCase().contains("VALUE=DATE-TIME")
+            || value.trim().length() == 8;
+    }
+
+    /**
+     * Parses a DATE (20250901) or DATE-TIME (20250901T090000, optionally with Z
+     * or a TZID parameter) into local wall-clock minutes, or returns INVALID.
+     */
+    private static long parseTime(String value, String params) {
+        value = value.trim();
+        try {
+            int year = Integer.parseInt(value.substring(0, 4));
+            int month = Integer.parseInt(value.substring(4, 6));
+            int day = Integer.parseInt(value.substring(6, 8));
+            if (value.length() == 8) return LocalDate.of(year, month, day).toEpochDay() * Event.MINUTES_PER_DAY;
+            if (value.length() < 15 || value.charAt(8) != 'T') return INVALID;
+
+            LocalDateTime time = LocalDateTime.of(year, month, day,
+                Integer.parseInt(value.substring(9, 11)), Integer.parseInt(value.substring(11, 13)),
+                Integer.parseInt(value.substring(13, 15)));
+
+            ZoneId zone = null;
+            if (value.endsWith("Z")) {
+                zone = ZoneOffset.UTC;
+            } else {
+                String tzid = param(params, "TZID");
+                if (tzid != null) zone = ZoneId.of(tzid);
+            }
+            if (zone != null) time = time.atZone(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            return Event.toMinutes(time);
+        } catch (RuntimeException e) {
+            // Malformed numbers, impossible dates and unknown time zones all end up here
+            return INVALID;
+        }
+    }
+
+    /**
+     * Parses a DURATION value such as PT1H30M, P1D or P2W into minutes, or returns INVALID.
+     */
+    private static long parseDuration(String value) {
+        value = value.trim().toUpperCase();
+        try {
+            boolean negative = value.startsWith("-");
+            if (negative || value.startsWith("+")) value = value.substring(1);
+            long minutes = value.endsWith("W")
+                ? Long.parseLong(value.substring(1, value.length() - 1)) * 7 * Event.MINUTES_PER_DAY
+                : Duration.parse(value).toMinutes();
+            return negative ? -minutes : minutes;
+        } catch (RuntimeException e) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Returns the value of a property parameter such as TZID, or null.
+     */
+    private static String param(String params, String name) {
+        for (String param : params.split(";")) {
+            if (param.regionMatches(true, 0, name + "=", 0, name.length() + 1)) {
+                String value = param.substring(name.length() + 1);
+                return value.startsWith("\"") ? value.replace("\"", "") : value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the colon separating a property's name and
+     * parameters from its value, skipping colons inside quoted parameters.
+     */
+    private static int valueStart(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') quoted = !quoted;
+            else if (c == ':' && !quoted) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes one content line, folding it so no physical line is longer than
+     * 75 bytes of UTF-8 (continuation lines start with a space). Lines end with CRLF.
+     */
+    private static void writeLine(Writer out, String line, StringBuilder buf) throws IOException {
+        buf.setLength(0);
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + size > MAX_LINE_OCTETS) {
+                buf.append("\r\n ");
+                octets = 1;
+            }
+            buf.appendCodePoint(codePoint);
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        buf.append("\r\n");
+        out.write(buf.toString());
+    }
+
+    /**
+     * Reads a CATEGORIES value such as "School,Work" into category bits.
+     * Names other than School, Personal and Work are ignored.
+     */
+    private static int parseCategories(String value) {
+        int categories = 0;
+        for (String name : value.split(",")) {
+            switch (unescape(name.trim()).toUpperCase()) {
+                case "SCHOOL":   categories |= Event.SCHOOL; break;
+                case "PERSONAL": categories |= Event.PERSONAL; break;
+                case "WORK":     categories |= Event.WORK; break;
+                default:         break;
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Formats category bits as a CATEGORIES value, e.g. "School,Work".
+     */
+    private static String formatCategories(int categories) {
+        StringBuilder text = new StringBuilder();
+        for (int bit = Event.SCHOOL; bit <= Event.WORK; bit <<= 1) {
+            if ((categories & bit) == 0) continue;
+            if (text.length() > 0) text.append(',');
+            text.append(Event.categoryName(bit));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Escapes text for a TEXT property value.
+     */
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\n", "\\n");
+    }
+
+    /**
+     * Reverses escape(), also accepting \N for a newline.
+     */
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) return text;
+
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                result.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats a day as an iCalendar DATE, e.g. 20250901.
+     */
+    private static String formatDate(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        StringBuilder text = new StringBuilder(8);
+        pad(text, date.getYear(), 4);
+        pad(text, date.getMonthValue(), 2);
+        pad(text, date.getDayOfMonth(), 2);
+        return text.toString();
+    }
+
+    /**
+     * Formats event minutes as a floating iCalendar DATE-TIME, e.g. 20250901T090000.
+     */
+    private static String formatMinutes(long minutes) {
+        int minuteOfDay = (int) Math.floorMod(minutes, (long) Event.MINUTES_PER_DAY);
+        StringBuilder text = new StringBuilder(formatDate(Math.floorDiv(minutes, Event.MINUTES_PER_DAY)));
+        text.append('T');
+        pad(text, minuteOfDay / 60, 2);
+        pad(text, minuteOfDay % 60, 2);
+        return text.append("00").toString();
+    }
+
+    /**
+     * Formats a date and time as an iCalendar DATE-TIME without a zone suffix.
+     */
+    private static String formatDateTime(LocalDateTime time) {
+        StringBuilder text = new StringBuilder(formatDate(time.toLocalDate().toEpochDay()));
+        text.append('T');
+        pad(text, time.getHour(), 2);
+        pad(text, time.getMinute(), 2);
+        pad(text, time.getSecond(), 2);
+        return text.toString();
+    }
+
+    /**
+     * Appends a number zero-padded to a width.
+     */
+    private static void pad(StringBuilder text, int value, int width) {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) text.append('0');
+        text.append(digits);
+    }
+
+    /**
+     * Returns the index of a string in an array, or -1.
+     */
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        return -1;
+    }
+}
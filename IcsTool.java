@@ -0,0 +1,155 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * IcsTool imports and exports calendars from the command line, without
+ * starting Greenfoot, and benchmarks the .ics codec.
+ *
+ * Usage:
+ *   java IcsTool import &lt;email&gt; &lt;file.ics&gt;
+ *   java IcsTool export &lt;email&gt; &lt;file.ics&gt;
+ *   java IcsTool bench [eventCount]
+ *
+ * Run it from the scenario folder so users.dat and userdata/ are found.
+ */
+public class IcsTool {
+
+    /** Email of the throwaway user the benchmark imports into */
+    private static final String BENCH_EMAIL = "ics-bench@localhost";
+
+    /**
+     * Entry point.
+     *
+     * @param args Command and its arguments (see class comment)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && (args[0].equals("import") || args[0].equals("export"))) {
+            User user = findUser(args[1]);
+            if (user == null) {
+                System.out.println("No user with email " + args[1]);
+                System.exit(1);
+            }
+            File file = new File(args[2]);
+            long startTime = System.nanoTime();
+            if (args[0].equals("import")) {
+                IcsCodec.ImportResult result = IcsCodec.importFile(user, file);
+                System.out.printf("imported %d events in %.1f ms%n", result.getImported(), (System.nanoTime() - startTime) / 1e6);
+                printUnsupportedRules(result);
+            } else {
+                int count = IcsCodec.exportFile(user, file);
+                System.out.printf("exported %d events in %.1f ms%n", count, (System.nanoTime() - startTime) / 1e6);
+            }
+        } else if (args.length >= 1 && args[0].equals("bench")) {
+            bench(args.length > 1 ? Integer.parseInt(args[1]) : 50000);
+        } else {
+            System.out.println("Usage: java IcsTool import|export <email> <file.ics>");
+            System.out.println("       java IcsTool bench [eventCount]");
+        }
+    }
+
+    /**
+     * Reports events whose repeat rule was dropped by an import, if any.
+     */
+    private static void printUnsupportedRules(IcsCodec.ImportResult result) {
+        if (result.getUnsupportedRules() > 0) {
+            System.out.println(result.getUnsupportedRules() + " repeating events had an unsupported RRULE;"
+                + " only their first occurrence was imported");
+        }
+    }
+
+    /**
+     * Returns the registered user with an email, or null.
+     */
+    private static User findUser(String email) {
+        for (User user : new UserManager().getUsers()) {
+            if (user.getEmail().equalsIgnoreCase(email)) return user;
+        }
+        return null;
+    }
+
+    /**
+     * Generates a timetable-like .ics file, then times importing it into a
+     * throwaway user and exporting it again. The user's files are removed afterwards.
+     */
+    private static void bench(int eventCount) throws IOException {
+        File input = File.createTempFile("ics-bench-in", ".ics");
+        File output = File.createTempFile("ics-bench-out", ".ics");
+        User user = new User(BENCH_EMAIL, "", "bench");
+        File userDir = DataManager.getUserDir(user, "calendar").getParentFile();
+        deleteTree(userDir);
+
+        try {
+            generate(input, eventCount);
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+            long startTime = System.nanoTime();
+            IcsCodec.ImportResult result = IcsCodec.importFile(user, input);
+            int imported = result.getImported();
+            double importMs = (System.nanoTime() - startTime) / 1e6;
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+            // Reload from disk so the export measures reading the segments too
+            user = new User(BENCH_EMAIL, "", "bench");
+            startTime = System.nanoTime();
+            int exported = IcsCodec.exportFile(user, output);
+            double exportMs = (System.nanoTime() - startTime) / 1e6;
+
+            File[] segments = DataManager.getUserDir(user, "calendar").listFiles();
+            System.out.printf("input:  %d events, %.1f MB%n", eventCount, input.length() / 1e6);
+            System.out.printf("import: %d events in %.0f ms (%.0f events/s), %d files written, heap +%.1f MB%n",
+                imported, importMs, imported / (importMs / 1000), segments == null ? 0 : segments.length,
+                (heapAfter - heapBefore) / 1e6);
+            System.out.printf("export: %d events in %.0f ms (%.0f events/s), %.1f MB%n",
+                exported, exportMs, exported / (exportMs / 1000), output.length() / 1e6);
+            printUnsupportedRules(result);
+        } finally {
+            input.delete();
+            output.delete();
+            deleteTree(userDir);
+        }
+    }
+
+    /**
+     * Writes a calendar of mostly one-off timed lessons spread over two
+     * school years, with some all-day events and some weekly repeating ones.
+     */
+    private static void generate(File file, int eventCount) throws IOException {
+        Random random = new Random(42);
+        String[] subjects = {"Maths", "English", "Physics", "Chemistry", "History", "Art", "French", "PE"};
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.write("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//IcsTool//Bench//EN\r\n");
+            for (int i = 0; i < eventCount; i++) {
+                int day = random.nextInt(730);
+                int month = 1 + (day / 61) % 12;
+                String date = String.format("%04d%02d%02d", 2025 + day / 365, month, 1 + day % 28);
+                int hour = 8 + random.nextInt(8);
+
+                out.write("BEGIN:VEVENT\r\nUID:bench-" + i + "@localhost\r\n");
+                if (i % 20 == 0) {
+                    out.write("DTSTART;VALUE=DATE:" + date + "\r\nSUMMARY:Exam week\\, " + subjects[i % subjects.length] + "\r\n");
+                } else {
+                    out.write(String.format("DTSTART:%sT%02d0000\r\nDTEND:%sT%02d5000\r\n", date, hour, date, hour));
+                    out.write("SUMMARY:" + subjects[random.nextInt(subjects.length)] + " lesson in room " + random.nextInt(300)
+                        + " with a description long enough that it has to be\r\n  folded onto a second line\r\n");
+                    if (i % 50 == 1) out.write("RRULE:FREQ=WEEKLY;COUNT=30\r\nEXDATE:" + date + "T" + String.format("%02d", hour) + "0000\r\n");
+                }
+                out.write("BEGIN:VALARM\r\nTRIGGER:-PT10M\r\nACTION:DISPLAY\r\nEND:VALARM\r\nEND:VEVENT\r\n");
+            }
+            out.write("END:VCALENDAR\r\n");
+        }
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     */
+    private static void deleteTree(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteTree(child);
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,79 @@
+import greenfoot.*;
+
+/**
+ * IdleGovernor lowers the Greenfoot speed while nobody is using the app, so
+ * the act loop stops spinning at full rate when the user leaves a world
+ * open. A world calls {@link #act} first thing in its own act().
+ *
+ * The world counts as busy while the mouse moves, is pressed, clicked or
+ * dragged, while one of the keys the widgets poll is held down, and while
+ * the RenderPool still has card images to deliver. The watched keys are the
+ * arrows, enter, escape and space, plus F3 for the profiler overlay. Other
+ * keys are deliberately not watched. Nothing on the governed worlds reads
+ * them, since text is typed into Greenfoot.ask dialogs, which pause the act
+ * loop. Greenfoot.getKey() is not used to detect them because it would
+ * consume the key before a TextBox could read it. After IDLE_AFTER of
+ * quiet the speed drops to IDLE_SPEED. The first sign of activity sets it
+ * back to ACTIVE_SPEED in the same frame, before any actor acts, so a
+ * click that switches worlds leaves the next world at full speed.
+ *
+ * Greenfoot has no way to read the speed, so while the user is active the
+ * governor assumes the default speed of a new scenario.
+ */
+public class IdleGovernor {
+
+    /** Speed while the user is active, Greenfoot's default */
+    public static final int ACTIVE_SPEED = 50;
+
+    /** Speed while idle */
+    public static final int IDLE_SPEED = 20;
+
+    /** Milliseconds without activity before slowing down */
+    private static final long IDLE_AFTER = 2000;
+
+    /** Keys that widgets and worlds poll with isKeyDown, which a key held down keeps active */
+    private static final String[] WATCHED_KEYS = { "up", "down", "left", "right", "enter", "escape", "space", "f3" };
+
+    private long lastActivity = System.currentTimeMillis(); // When activity was last seen
+    private boolean idle;                                   // Whether the speed is lowered
+
+    /**
+     * Checks for activity and adjusts the speed. Call once per frame from the world's act().
+     */
+    public void act() {
+        if (isActive()) {
+            lastActivity = System.currentTimeMillis();
+            if (idle) {
+                idle = false;
+                Greenfoot.setSpeed(ACTIVE_SPEED);
+            }
+        } else if (!idle && System.currentTimeMillis() - lastActivity >= IDLE_AFTER) {
+            idle = true;
+            Greenfoot.setSpeed(IDLE_SPEED);
+        }
+    }
+
+    /**
+     * Returns true while the speed is lowered.
+     *
+     * @return Whether the world is idle
+     */
+    public boolean isIdle() {
+        return idle;
+    }
+
+    /**
+     * Returns true if there was mouse or key activity this frame, or
+     * background work whose results still have to be shown.
+     */
+    private boolean isActive() {
+        if (Greenfoot.mouseMoved(null) || Greenfoot.mousePressed(null) || Greenfoot.mouseClicked(null)
+                || Greenfoot.mouseDragged(null) || Greenfoot.mouseDragEnded(null)) {
+            return true;
+        }
+        for (String key : WATCHED_KEYS) {
+            if (Greenfoot.isKeyDown(key)) return true;
+        }
+        return RenderPool.isBusy();
+    }
+}
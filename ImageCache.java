@@ -0,0 +1,112 @@
+import greenfoot.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ImageCache keeps the images of static widgets (labels and buttons) so
+ * that a widget created again with the same text, font size, colors and
+ * size reuses the image drawn last time instead of rasterizing it again.
+ * Switching pages recreates titles like "To Do" and "My Tasks" and every
+ * sidebar button; with the cache those are lookups.
+ *
+ * Images are shared between actors, so they must never be drawn on after
+ * they are cached. The cache is bounded by total pixels and evicts the
+ * least recently used images first. Hit and miss counts are kept to see
+ * how well it works.
+ */
+public class ImageCache {
+
+    /** Most pixels kept across all cached images (about 16MB of ARGB) */
+    private static final long MAX_PIXELS = 4L * 1024 * 1024;
+
+    /**
+     * Draws an image on a cache miss.
+     */
+    public interface Renderer {
+        /** Returns the newly drawn image */
+        GreenfootImage render();
+    }
+
+    private static final LinkedHashMap<String, GreenfootImage> images =
+        new LinkedHashMap<>(64, 0.75f, true);  // Cached images by key, least recently used first
+    private static long pixels;                 // Pixels in the cached images
+    private static long hits, misses;           // Lookups served from the cache, and drawn
+
+    private ImageCache() {}
+
+    /**
+     * Returns the cached image for a key, drawing and caching it first if needed.
+     * The returned image is shared and must not be changed.
+     *
+     * @param key      Everything the image depends on, see {@link #key}
+     * @param renderer Draws the image if it is not cached
+     * @return The image
+     */
+    public static synchronized GreenfootImage get(String key, Renderer renderer) {
+        GreenfootImage image = images.get(key);
+        if (image != null) {
+            hits++;
+            return image;
+        }
+
+        misses++;
+        image = renderer.render();
+        images.put(key, image);
+        pixels += (long) image.getWidth() * image.getHeight();
+
+        // Evict the least recently used images, keeping at least the new one
+        Iterator<Map.Entry<String, GreenfootImage>> oldest = images.entrySet().iterator();
+        while (pixels > MAX_PIXELS && images.size() > 1) {
+            GreenfootImage evicted = oldest.next().getValue();
+            pixels -= (long) evicted.getWidth() * evicted.getHeight();
+            oldest.remove();
+        }
+        return image;
+    }
+
+    /**
+     * Builds a cache key from the things an image depends on.
+     * Colors are written as their RGBA components.
+     *
+     * @param parts The widget type, text, sizes, colors, etc.
+     * @return The key
+     */
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            if (part instanceof greenfoot.Color) {
+                greenfoot.Color c = (greenfoot.Color) part;
+                key.append(c.getRed()).append(',').append(c.getGreen()).append(',')
+                   .append(c.getBlue()).append(',').append(c.getAlpha());
+            } else {
+                key.append(part);
+            }
+            key.append('\u0000'); // Cannot appear in widget text, so keys cannot run together
+        }
+        return key.toString();
+    }
+
+    /**
+     * Drops every cached image, e.g. when the look of the widgets changes.
+     */
+    public static synchronized void clear() {
+        images.clear();
+        pixels = 0;
+    }
+
+    /** Returns how many lookups were served from the cache */
+    public static synchronized long getHits() {
+        return hits;
+    }
+
+    /** Returns how many lookups had to draw the image */
+    public static synchronized long getMisses() {
+        return misses;
+    }
+
+    /** Returns how many images are cached */
+    public static synchronized int size() {
+        return images.size();
+    }
+}
@@ -0,0 +1,347 @@
+import greenfoot.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * InputDispatcher reads the mouse once per frame for the whole dashboard
+ * and calls the handler of the region that was clicked, so widgets do not
+ * each poll {@code Greenfoot.mouseClicked} in their own act().
+ *
+ * Widgets register hit regions: a whole button, or a sub-region of one such
+ * as a card's checkbox or a note's delete button. Regions are kept in a
+ * uniform grid of 50x50 pixel cells, so finding the region under the mouse
+ * only looks at the few regions in one cell, however many widgets are on
+ * the page. A sub-region only receives clicks inside its parent as well,
+ * which clips rows to a scrolling list, and the deepest region wins.
+ *
+ * Only regions owned by the actor that Greenfoot reports as clicked can be
+ * hit, so a popup or overlay on top (which is not registered) still hides
+ * what is under it. Regions of actors removed from the world are dropped
+ * the next time they are found, or by {@link #removeDetached}.
+ */
+public class InputDispatcher {
+
+    private static final int CELL = 50;         // Width and height of a grid cell in pixels
+
+    /**
+     * Called when a region is clicked.
+     */
+    public interface Handler {
+        /**
+         * @param x Horizontal click position relative to the region's left edge
+         * @param y Vertical click position relative to the region's top edge
+         */
+        void clicked(int x, int y);
+    }
+
+    /**
+     * A clickable rectangle in world coordinates, owned by an actor.
+     */
+    public static class Region {
+        private final Actor owner;              // The actor the region belongs to
+        private final Region parent;            // Enclosing region, or null
+        private final int depth;                // 0 for top-level regions, parent's + 1 below
+        private final ArrayList<Region> children = new ArrayList<>(); // Sub-regions
+        private int left, top, width, height;   // Bounds in world coordinates
+        private Handler handler;                // Called on a click, or null for none
+        private boolean indexed;                // Whether the region is in the grid
+
+        private Region(Actor owner, Region parent, Handler handler) {
+            this.owner = owner;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.handler = handler;
+        }
+
+        /** Returns the left edge in world coordinates */
+        public int getLeft() {
+            return left;
+        }
+
+        /** Returns the top edge in world coordinates */
+        public int getTop() {
+            return top;
+        }
+
+        /** Returns true if the point is inside this region and all of its parents */
+        private boolean contains(int x, int y) {
+            for (Region r = this; r != null; r = r.parent) {
+                if (x < r.left || y < r.top || x >= r.left + r.width || y >= r.top + r.height) return false;
+            }
+            return true;
+        }
+    }
+
+    private final World world;                  // The world whose mouse input is dispatched
+    private final int columns, rows;            // Grid size in cells
+    private final ArrayList<ArrayList<Region>> cells = new ArrayList<>(); // Regions overlapping each cell
+    private final HashMap<Actor, Region> attached = new HashMap<>(); // Whole-actor regions from attach()
+
+    /**
+     * Creates a dispatcher covering the whole world.
+     *
+     * @param world The world whose clicks are dispatched
+     */
+    public InputDispatcher(World world) {
+        this.world = world;
+        columns = (world.getWidth() + CELL - 1) / CELL;
+        rows = (world.getHeight() + CELL - 1) / CELL;
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(new ArrayList<Region>());
+        }
+    }
+
+    /**
+     * Returns the dispatcher of a world, or null if the world has none.
+     * Widgets outside the dashboard keep polling the mouse themselves.
+     *
+     * @param world The world, may be null
+     * @return Its dispatcher, or null
+     */
+    public static InputDispatcher of(World world) {
+        return world instanceof DashboardWorld ? ((DashboardWorld) world).getInput() : null;
+    }
+
+    /**
+     * Registers a region covering an actor's image at its current location,
+     * if the actor's world has a dispatcher. Calling it again for the same
+     * actor, e.g. after it was added to the world again, moves the region
+     * and replaces the handler.
+     *
+     * @param actor   The actor, already in a world
+     * @param handler Called when the actor is clicked
+     * @return The region, or null if the world has no dispatcher
+     */
+    public static Region attach(Actor actor, Handler handler) {
+        InputDispatcher input = of(actor.getWorld());
+        if (input == null || actor.getImage() == null) return null;
+
+        GreenfootImage img = actor.getImage();
+        int left = actor.getX() - img.getWidth() / 2;
+        int top = actor.getY() - img.getHeight() / 2;
+        Region region = input.attached.get(actor);
+        if (region == null) {
+            region = input.add(actor, left, top, img.getWidth(), img.getHeight(), handler);
+            input.attached.put(actor, region);
+        } else {
+            input.unindex(region);
+            region.handler = handler;
+            region.width = img.getWidth();
+            region.height = img.getHeight();
+            input.move(region, left, top);
+        }
+        return region;
+    }
+
+    /**
+     * Registers a top-level region.
+     *
+     * @param owner   The actor the region belongs to; clicks must land on it
+     * @param left    Left edge in world coordinates
+     * @param top     Top edge in world coordinates
+     * @param width   Width of the region
+     * @param height  Height of the region
+     * @param handler Called when the region is clicked, or null
+     * @return The new region
+     */
+    public Region add(Actor owner, int left, int top, int width, int height, Handler handler) {
+        Region region = new Region(owner, null, handler);
+        place(region, left, top, width, height);
+        return region;
+    }
+
+    /**
+     * Registers a sub-region. It belongs to the parent's owner, is placed
+     * relative to the parent's top-left corner, moves with the parent and
+     * only receives clicks that are inside the parent too.
+     *
+     * @param parent  The enclosing region
+     * @param x       Left edge relative to the parent
+     * @param y       Top edge relative to the parent
+     * @param width   Width of the region
+     * @param height  Height of the region
+     * @param handler Called when the region is clicked, or null
+     * @return The new region
+     */
+    public Region add(Region parent, int x, int y, int width, int height, Handler handler) {
+        Region region = new Region(parent.owner, parent, handler);
+        parent.children.add(region);
+        place(region, parent.left + x, parent.top + y, width, height);
+        return region;
+    }
+
+    /**
+     * Moves a region and its sub-regions so its top-left corner is at the given point.
+     *
+     * @param region The region to move
+     * @param left   New left edge in world coordinates
+     * @param top    New top edge in world coordinates
+     */
+    public void move(Region region, int left, int top) {
+        int dx = left - region.left;
+        int dy = top - region.top;
+        unindex(region);
+        region.left = left;
+        region.top = top;
+        index(region);
+        for (Region child : region.children) {
+            move(child, child.left + dx, child.top + dy);
+        }
+    }
+
+    /**
+     * Puts a region and its sub-regions back in the grid, e.g. when their
+     * owner returns to the world after regions of removed actors were dropped.
+     *
+     * @param region The region to restore
+     */
+    public void restore(Region region) {
+        move(region, region.left, region.top);
+    }
+
+    /**
+     * Unregisters a region and its sub-regions.
+     *
+     * @param region The region to remove, may be null
+     */
+    public void remove(Region region) {
+        if (region == null) return;
+        unindexAll(region);
+        region.children.clear();
+        if (region.parent != null) region.parent.children.remove(region);
+        if (attached.get(region.owner) == region) attached.remove(region.owner);
+    }
+
+    /**
+     * Unregisters every sub-region of a region, keeping the region itself.
+     *
+     * @param region The parent region
+     */
+    public void removeChildren(Region region) {
+        for (Region child : region.children) {
+            unindexAll(child);
+            child.children.clear();
+        }
+        region.children.clear();
+    }
+
+    /**
+     * Drops the regions of every actor that is no longer in the world,
+     * e.g. after the dashboard switched pages.
+     */
+    public void removeDetached() {
+        HashSet<Region> detached = new HashSet<>();
+        for (ArrayList<Region> cell : cells) {
+            for (Region region : cell) {
+                if (region.owner.getWorld() != world) detached.add(region);
+            }
+        }
+        for (Region region : detached) {
+            unindex(region);
+        }
+        Iterator<Actor> owners = attached.keySet().iterator();
+        while (owners.hasNext()) {
+            if (owners.next().getWorld() != world) owners.remove();
+        }
+    }
+
+    /**
+     * Reads the mouse and calls the handler of the clicked region, if any.
+     * DashboardWorld calls this once per frame.
+     */
+    public void dispatch() {
+        if (!Greenfoot.mouseClicked(null)) return;
+        MouseInfo mouse = Greenfoot.getMouseInfo();
+        if (mouse == null || mouse.getActor() == null) return;
+
+        int x = mouse.getX();
+        int y = mouse.getY();
+        Region target = regionAt(x, y, mouse.getActor());
+        if (target != null) {
+            target.handler.clicked(x - target.left, y - target.top);
+        }
+    }
+
+    /**
+     * Finds the deepest region with a handler at a point that belongs to the
+     * clicked actor. Regions of actors that left the world are dropped on the way.
+     */
+    private Region regionAt(int x, int y, Actor clicked) {
+        if (x < 0 || y < 0 || x >= columns * CELL || y >= rows * CELL) return null;
+
+        ArrayList<Region> cell = cells.get((y / CELL) * columns + x / CELL);
+        Region best = null;
+        ArrayList<Region> detached = null;
+        for (Region region : cell) {
+            if (region.owner.getWorld() != world) {
+                if (detached == null) detached = new ArrayList<>();
+                detached.add(region);
+                continue;
+            }
+            if (region.owner != clicked || region.handler == null || !region.contains(x, y)) continue;
+            if (best == null || region.depth >= best.depth) best = region; // Later regions are on top
+        }
+
+        if (detached != null) {
+            for (Region region : detached) unindex(region);
+        }
+        return best;
+    }
+
+    /**
+     * Sets a new region's bounds and adds it to the grid.
+     */
+    private void place(Region region, int left, int top, int width, int height) {
+        region.left = left;
+        region.top = top;
+        region.width = width;
+        region.height = height;
+        index(region);
+    }
+
+    /**
+     * Adds a region to every grid cell it overlaps.
+     */
+    private void index(Region region) {
+        if (region.indexed || region.width <= 0 || region.height <= 0) return;
+        int firstColumn = Math.max(0, region.left / CELL);
+        int lastColumn = Math.min(columns - 1, (region.left + region.width - 1) / CELL);
+        int firstRow = Math.max(0, region.top / CELL);
+        int lastRow = Math.min(rows - 1, (region.top + region.height - 1) / CELL);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                cells.get(row * columns + column).add(region);
+            }
+        }
+        region.indexed = true;
+    }
+
+    /**
+     * Removes a region and its sub-regions from the grid.
+     */
+    private void unindexAll(Region region) {
+        unindex(region);
+        for (Region child : region.children) {
+            unindexAll(child);
+        }
+    }
+
+    /**
+     * Removes a region from the grid cells it overlaps.
+     */
+    private void unindex(Region region) {
+        if (!region.indexed) return;
+        int firstColumn = Math.max(0, region.left / CELL);
+        int lastColumn = Math.min(columns - 1, (region.left + region.width - 1) / CELL);
+        int firstRow = Math.max(0, region.top / CELL);
+        int lastRow = Math.min(rows - 1, (region.top + region.height - 1) / CELL);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                cells.get(row * columns + column).remove(region);
+            }
+        }
+        region.indexed = false;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * IntervalTree indexes calendar events by their [start, end) time range.
+ *
+ * It is a treap (a randomly balanced binary search tree) ordered by event
+ * start time, where every node also remembers the largest end time in its
+ * subtree. That lets {@link #query(long, long)} skip whole subtrees that end
+ * before the query window, so finding the events overlapping a month, a day
+ * or an hour costs O(log n + k) for k results. Insert and remove are O(log n).
+ */
+public class IntervalTree {
+
+    private Node root;                      // Root of the treap
+    private int size;                       // Number of stored events
+    private Random random = new Random();   // Source of node priorities
+
+    /**
+     * A tree node holding one event.
+     */
+    private static class Node {
+        Event event;
+        int priority;
+        long maxEnd;        // Largest event end in this subtree
+        Node left, right;
+
+        Node(Event event, int priority) {
+            this.event = event;
+            this.priority = priority;
+            this.maxEnd = event.getEnd();
+        }
+    }
+
+    /**
+     * Adds an event to the tree.
+     *
+     * @param event The event to add
+     */
+    public void insert(Event event) {
+        Node[] parts = split(root, event.getStart(), event.getId());
+        root = merge(merge(parts[0], new Node(event, random.nextInt())), parts[1]);
+        size++;
+    }
+
+    /**
+     * Removes an event from the tree. The event is found by its start time and id,
+     * so those must not have changed since it was inserted.
+     *
+     * @param event The event to remove
+     * @return true if the event was found and removed
+     */
+    public boolean remove(Event event) {
+        Node[] lower = split(root, event.getStart(), event.getId());
+        Node[] upper = split(lower[1], event.getStart(), event.getId() + 1);
+        boolean found = upper[0] != null;
+        root = merge(lower[0], upper[1]);
+        if (found) size--;
+        return found;
+    }
+
+    /**
+     * Returns all events overlapping the window [from, to), ordered by start time.
+     *
+     * @param from Start of the window (inclusive), in minutes
+     * @param to   End of the window (exclusive), in minutes
+     * @return List of overlapping events
+     */
+    public List<Event> query(long from, long to) {
+        ArrayList<Event> result = new ArrayList<>();
+        query(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * Returns the number of events in the tree.
+     *
+     * @return Event count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * In-order walk that prunes subtrees which cannot overlap the window.
+     */
+    private void query(Node node, long from, long to, List<Event> result) {
+        if (node == null || node.maxEnd <= from) return;
+
+        query(node.left, from, to, result);
+        if (node.event.getStart() < to) {
+            if (node.event.getEnd() > from) result.add(node.event);
+            query(node.right, from, to, result);
+        }
+    }
+
+    /**
+     * Splits a subtree into nodes ordered before (start, id) and the rest.
+     */
+    private Node[] split(Node node, long start, long id) {
+        if (node == null) return new Node[] { null, null };
+
+        if (compare(node.event, start, id) < 0) {
+            Node[] parts = split(node.right, start, id);
+            node.right = parts[0];
+            update(node);
+            return new Node[] { node, parts[1] };
+        } else {
+            Node[] parts = split(node.left, start, id);
+            node.left = parts[1];
+            update(node);
+            return new Node[] { parts[0], node };
+        }
+    }
+
+    /**
+     * Joins two subtrees where every node of a is ordered before every node of b.
+     */
+    private Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        } else {
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+    }
+
+    /**
+     * Recomputes a node's max end from its children.
+     */
+    private void update(Node node) {
+        long max = node.event.getEnd();
+        if (node.left != null && node.left.maxEnd > max) max = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd > max) max = node.right.maxEnd;
+        node.maxEnd = max;
+    }
+
+    /**
+     * Orders events by start time, then by id so equal starts are distinct keys.
+     */
+    private static int compare(Event event, long start, long id) {
+        if (event.getStart() != start) return event.getStart() < start ? -1 : 1;
+        return Long.compare(event.getId(), id);
+    }
+}
@@ -8,6 +8,7 @@ import greenfoot.*;
 public class LoginWorld extends World {
 
     private UserManager userManager;
+    private IdleGovernor governor = new IdleGovernor(); // Slows the act loop while nobody logs in
 
     /**
      * Default constructor for LoginWorld.
@@ -32,6 +33,14 @@ public class LoginWorld extends World {
         addUI();
     }
 
+    /**
+     * Lowers the speed while the login screen sits unused and restores it on
+     * the first mouse or key activity.
+     */
+    public void act() {
+        governor.act();
+    }
+
     /**
      * Sets the background color of the login screen.
      * Uses a light beige color (RGB 239, 232, 219).
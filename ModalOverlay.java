@@ -0,0 +1,41 @@
+import greenfoot.*;
+
+/**
+ * ModalOverlay is a dimmed layer covering the whole world, placed just
+ * below a popup. It catches every click that misses the popup, so the page
+ * behind cannot be used while the popup is open, and tells the popup the
+ * user clicked outside it.
+ *
+ * Like ButtonActor, use it as an anonymous subclass overriding onDismiss().
+ */
+public abstract class ModalOverlay extends Actor {
+
+    /**
+     * Constructs an overlay of the given size.
+     *
+     * @param width  Width of the world
+     * @param height Height of the world
+     */
+    public ModalOverlay(int width, int height) {
+        GreenfootImage img = new GreenfootImage(width, height);
+        img.setColor(new greenfoot.Color(0, 0, 0, 60));
+        img.fill();
+        setImage(img);
+    }
+
+    /**
+     * Calls onDismiss() when the overlay (anything outside the popup) is clicked.
+     */
+    public void act() {
+        long start = Profiler.start();
+        if (Greenfoot.mouseClicked(this)) {
+            onDismiss();
+        }
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Called when the user clicks outside the popup.
+     */
+    public abstract void onDismiss();
+}
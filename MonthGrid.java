@@ -0,0 +1,104 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * MonthGrid is an immutable description of how a month lays out on a
+ * 6 x 7 calendar grid: its length, the weekday it starts on, which day is
+ * today, and its display title. Instances are computed once per month and
+ * cached by {@link CalendarMonth}, so drawing a month needs no calendar
+ * arithmetic.
+ */
+public class MonthGrid {
+
+    /** Number of cells in the grid (6 weeks of 7 days) */
+    public static final int CELLS = 42;
+
+    private static final String[] MONTH_NAMES = {"January", "February", "March", "April", "May", "June",
+                                                 "July", "August", "September", "October", "November", "December"};
+
+    private final YearMonth yearMonth;   // The month described
+    private final int length;            // Days in the month
+    private final int firstWeekday;      // Weekday of the 1st: 0 = Sunday ... 6 = Saturday
+    private final int today;             // Today's day of month, or -1 if today is in another month
+    private final long firstEpochDay;    // The 1st, as days since 1970-01-01
+    private final String title;          // e.g. "March 2025"
+    private final LocalDate computedFor; // The date the today marker was computed for
+
+    /**
+     * Computes the grid for a month.
+     *
+     * @param yearMonth The month
+     * @param today     Today's date, used for the today marker
+     */
+    public MonthGrid(YearMonth yearMonth, LocalDate today) {
+        LocalDate first = yearMonth.atDay(1);
+        this.yearMonth = yearMonth;
+        this.length = yearMonth.lengthOfMonth();
+        this.firstWeekday = first.getDayOfWeek().getValue() % 7; // java.time: Monday = 1 ... Sunday = 7
+        this.today = YearMonth.from(today).equals(yearMonth) ? today.getDayOfMonth() : -1;
+        this.firstEpochDay = first.toEpochDay();
+        this.title = MONTH_NAMES[yearMonth.getMonthValue() - 1] + " " + yearMonth.getYear();
+        this.computedFor = today;
+    }
+
+    /**
+     * Returns true if the grid was computed for the given date, i.e. its today marker is right.
+     *
+     * @param today Today's date
+     * @return Whether the grid is up to date
+     */
+    public boolean isCurrent(LocalDate today) {
+        return computedFor.equals(today);
+    }
+
+    /**
+     * Returns the day of month shown in a grid cell.
+     *
+     * @param cell Cell index (row * 7 + column)
+     * @return Day of month (1-31), or 0 if the cell is outside the month
+     */
+    public int getDayAt(int cell) {
+        int day = cell - firstWeekday + 1;
+        return day >= 1 && day <= length ? day : 0;
+    }
+
+    /**
+     * Returns the date of a day in this month.
+     *
+     * @param day Day of month (1-31)
+     * @return Days since 1970-01-01
+     */
+    public long getEpochDay(int day) {
+        return firstEpochDay + day - 1;
+    }
+
+    /** Returns the month described by this grid */
+    public YearMonth getYearMonth() {
+        return yearMonth;
+    }
+
+    /** Returns the number of days in the month */
+    public int getLength() {
+        return length;
+    }
+
+    /** Returns the weekday of the 1st (0 = Sunday ... 6 = Saturday) */
+    public int getFirstWeekday() {
+        return firstWeekday;
+    }
+
+    /** Returns today's day of month, or -1 if today is not in this month */
+    public int getToday() {
+        return today;
+    }
+
+    /** Returns the full name of the month (e.g. "January") */
+    public String getMonthName() {
+        return MONTH_NAMES[yearMonth.getMonthValue() - 1];
+    }
+
+    /** Returns the display title, e.g. "March 2025" */
+    public String getTitle() {
+        return title;
+    }
+}
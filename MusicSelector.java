@@ -48,6 +48,9 @@ public class MusicSelector extends Actor {
      * @param world The Greenfoot world
      */
     protected void addedToWorld(World world) {
+        // Back from the dashboard's page cache: the title and buttons come back with it
+        if (!selectorElements.isEmpty()) return;
+
         // Title label
         TextLabel title = new TextLabel(
             "🎵 Music Player", 22,
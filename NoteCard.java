@@ -1,27 +1,44 @@
 import greenfoot.*;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
 /**
  * NoteCard represents a single sticky note in the NotesPanel.
  * It displays the note's text, background color, and provides
- * a small "X" button to delete the note.
+ * a small "X" button to delete the note. Clicking the note edits it,
+ * and the small history button restores an earlier version.
+ * NotesPanel draws the note's image into its own, and the note registers
+ * its click regions with the InputDispatcher.
+ *
+ * A full redraw happens on the RenderPool: the card shows a plain note of
+ * the right color until the finished image arrives, then has the panel
+ * patch it in.
  */
 public class NoteCard extends Actor {
 
+    private int noteIndex;               // Index of the note in the user's note list
     private String text;                 // The content of the note
     private greenfoot.Color bgColor;     // Background color of the note
     private User user;                   // The user owning this note
     private NotesPanel parentPanel;      // Reference to the parent panel
     private int w = 130, h = 140;        // Width and height of the note card
+    private int renders;                 // Render jobs submitted; only the newest one's image is used
+    private boolean rendering;           // Whether the image is still the placeholder
+
+    private static final Font NOTE_FONT = new Font("Comic Sans MS", false, false, 14);
+    private static final Font BUTTON_FONT = new Font("Arial", true, false, 12);
 
     /**
      * Constructor for a NoteCard.
      *
+     * @param noteIndex   Index of the note in the user's note list.
      * @param text        The text to display on the note.
      * @param bgColor     Background color of the note.
      * @param user        The User who owns this note.
      * @param parentPanel The NotesPanel that contains this card.
      */
-    public NoteCard(String text, greenfoot.Color bgColor, User user, NotesPanel parentPanel) {
+    public NoteCard(int noteIndex, String text, greenfoot.Color bgColor, User user, NotesPanel parentPanel) {
+        this.noteIndex = noteIndex;
         this.text = text;
         this.bgColor = bgColor;
         this.user = user;
@@ -29,91 +46,225 @@ public class NoteCard extends Actor {
         updateImage();
     }
 
+    /**
+     * Rebinds this card to a different note so NotesPanel can recycle it
+     * while scrolling. The card is only re-rendered if its content changed,
+     * and only the text area if the color is the same.
+     *
+     * @param noteIndex Index of the note in the user's note list.
+     * @param text      The text to display on the note.
+     * @param bgColor   Background color of the note.
+     */
+    public void bind(int noteIndex, String text, greenfoot.Color bgColor) {
+        this.noteIndex = noteIndex;
+        if (text.equals(this.text) && bgColor.equals(this.bgColor)) return;
+        boolean sameColor = bgColor.equals(this.bgColor);
+        this.text = text;
+        this.bgColor = bgColor;
+        if (sameColor && !rendering) {
+            updateText();
+        } else {
+            updateImage();
+        }
+    }
+
+    /**
+     * Redraws only the text area of the current image: fills it with the
+     * note color, draws the new text, and draws the "X" button again since
+     * the area reaches under it. The tape, border, shadow and history
+     * button are left as they are.
+     */
+    private void updateText() {
+        Graphics2D g = RenderPool.graphics(getImage().getAwtImage());
+        g.setColor(RenderPool.toAwtColor(bgColor));
+        g.fillRect(1, 9, w - 5, 104);
+        drawText(g, text);
+        drawDeleteButton(g);
+        g.dispose();
+    }
+
     /**
      * Updates the visual representation of the note.
-     * Draws shadow, colored background, tape effect, border, text,
-     * and a small "X" delete button.
+     * Shows the plain note (shadow and colored background) at once and has
+     * the RenderPool draw the full note from a copy of its text and color.
      */
     private void updateImage() {
-        GreenfootImage img = new GreenfootImage(w, h);
+        long start = Profiler.start();
+        final String shownText = text;
+        final greenfoot.Color color = bgColor;
 
-        // Shadow
-        img.setColor(new greenfoot.Color(0, 0, 0, 80));
-        img.fillRect(3, 3, w-6, h-6);
+        GreenfootImage placeholder = new GreenfootImage(w, h);
+        Graphics2D g = RenderPool.graphics(placeholder.getAwtImage());
+        drawNote(g, color);
+        g.dispose();
+        setImage(placeholder);
+        rendering = true;
 
-        // Main sticky note
-        img.setColor(bgColor);
-        img.fillRect(0, 0, w-3, h-3);
+        final int render = ++renders;
+        RenderPool.submit(new RenderPool.Job() {
+            public BufferedImage render() {
+                return draw(shownText, color);
+            }
+        }, new RenderPool.Target() {
+            public void rendered(GreenfootImage image) {
+                if (render != renders) return; // Overtaken by a newer redraw
+                setImage(image);
+                rendering = false;
+                if (parentPanel != null) parentPanel.noteChanged(NoteCard.this);
+            }
+        });
+        Profiler.stop(this, "updateImage", start);
+    }
+
+    /**
+     * Draws the whole note: shadow, colored background, tape effect, border,
+     * text, and the small "X" delete and history buttons. Runs on the
+     * RenderPool, so it only reads its arguments and the card's size.
+     */
+    private BufferedImage draw(String text, greenfoot.Color color) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = RenderPool.graphics(img);
+        drawNote(g, color);
 
         // Top "tape" effect
-        img.setColor(new greenfoot.Color(255, 255, 255, 150));
-        img.fillRect(w/2 - 15, 0, 30, 8);
+        g.setColor(new java.awt.Color(255, 255, 255, 150));
+        g.fillRect(w/2 - 15, 0, 30, 8);
 
         // Border (slightly darker)
-        int r = Math.max(0, bgColor.getRed() - 30);
-        int g = Math.max(0, bgColor.getGreen() - 30);
-        int b = Math.max(0, bgColor.getBlue() - 30);
-        img.setColor(new greenfoot.Color(r, g, b));
-        img.drawRect(0, 0, w-4, h-4);
-
-        // Text rendering with simple wrapping
-        img.setColor(new greenfoot.Color(50, 50, 50));
-        img.setFont(new Font("Comic Sans MS", false, false, 14));
-
-        String[] words = text.split(" ");
-        String line = "";
+        int r = Math.max(0, color.getRed() - 30);
+        int gr = Math.max(0, color.getGreen() - 30);
+        int b = Math.max(0, color.getBlue() - 30);
+        g.setColor(new java.awt.Color(r, gr, b));
+        g.drawRect(0, 0, w-4, h-4);
+
+        drawText(g, text);
+        drawDeleteButton(g);
+
+        // Small history button in the bottom-right corner
+        g.setColor(new java.awt.Color(90, 90, 140));
+        g.fillOval(w - 20, h - 24, 15, 15);
+        g.setColor(java.awt.Color.WHITE);
+        g.drawString("↺", w - 17, h - 12);
+
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Draws the shadow and the colored background of the note, which is
+     * also the placeholder shown while the note is drawn.
+     */
+    private void drawNote(Graphics2D g, greenfoot.Color color) {
+        // Shadow
+        g.setColor(new java.awt.Color(0, 0, 0, 80));
+        g.fillRect(3, 3, w-6, h-6);
+
+        // Main sticky note
+        g.setColor(RenderPool.toAwtColor(color));
+        g.fillRect(0, 0, w-3, h-3);
+    }
+
+    /**
+     * Draws the wrapped note text, which stays within rows 9 to 112.
+     *
+     * @param g    Graphics of the note image.
+     * @param text The note's text.
+     */
+    private void drawText(Graphics2D g, String text) {
+        // Text rendering with cached wrapping
+        g.setColor(new java.awt.Color(50, 50, 50));
+        g.setFont(TextLayout.toAwtFont(NOTE_FONT));
+
         int y = 25;
-        int maxWidth = w - 15;
-
-        for (String word : words) {
-            String testLine = line + word + " ";
-            GreenfootImage testImg = new GreenfootImage(testLine, 14,
-                    new greenfoot.Color(0,0,0), new greenfoot.Color(0,0,0,0));
-
-            if (testImg.getWidth() > maxWidth && !line.isEmpty()) {
-                img.drawString(line, 8, y);
-                line = word + " ";
-                y += 16;
-                if (y > h - 25) break; // Stop if too long
-            } else {
-                line = testLine;
-            }
-        }
-        if (!line.isEmpty() && y <= h - 25) {
-            img.drawString(line, 8, y);
+        int maxLines = (h - 25 - y) / 16 + 1; // Lines that fit above the bottom margin
+        for (String line : TextLayout.wrap(text, NOTE_FONT, w - 15, maxLines)) {
+            g.drawString(line, 8, y);
+            y += 16;
         }
+    }
+
+    /**
+     * Draws the small "X" button for deleting the note. Leaves the font set
+     * for the history button's symbol.
+     *
+     * @param g Graphics of the note image.
+     */
+    private void drawDeleteButton(Graphics2D g) {
+        g.setColor(new java.awt.Color(200, 0, 0));
+        g.fillOval(w - 20, 5, 15, 15);
+        g.setColor(java.awt.Color.WHITE);
+        g.setFont(TextLayout.toAwtFont(BUTTON_FONT));
+        g.drawString("×", w - 15, 16);
+    }
+
+    /**
+     * Registers the note's click regions inside the region NotesPanel gave
+     * the card: anywhere on the note edits it, and the "X" and history
+     * buttons on top of it delete the note or restore an earlier version.
+     *
+     * @param input The dashboard's InputDispatcher.
+     * @param card  The region covering this note on screen.
+     */
+    public void addHitRegions(InputDispatcher input, InputDispatcher.Region card) {
+        InputDispatcher.Region note = input.add(card, 0, 0, w - 3, h - 3, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                String edited = Greenfoot.ask("Edit note:");
+                if (edited == null || edited.trim().isEmpty()) return;
+                user.updateNote(noteIndex, edited.trim());
+                refreshPanel();
+            }
+        });
 
-        // Small "X" button for deleting note
-        img.setColor(new greenfoot.Color(200, 0, 0));
-        img.fillOval(w - 20, 5, 15, 15);
-        img.setColor(new greenfoot.Color(255, 255, 255));
-        img.setFont(new Font("Arial", true, false, 12));
-        img.drawString("×", w - 15, 16);
+        // "X" button for deleting the note
+        input.add(note, w - 19, 6, 14, 14, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                playSound("au.wav"); // Delete sound effect
+                user.removeNote(noteIndex);
+                refreshPanel();
+            }
+        });
 
-        setImage(img);
+        // History button
+        input.add(note, w - 19, h - 23, 14, 14, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                playSound("click.wav");
+                showHistory();
+                refreshPanel();
+            }
+        });
     }
 
     /**
-     * Handles mouse clicks on the note.
-     * If clicked on the "X" button, deletes the note from the user's list
-     * and refreshes the parent panel display.
+     * Shows the notes again after this one changed.
      */
-    public void act() {
-        if (Greenfoot.mouseClicked(this)) {
-            MouseInfo mouse = Greenfoot.getMouseInfo();
-            if (mouse != null) {
-                int relX = mouse.getX() - (getX() - w/2);
-                int relY = mouse.getY() - (getY() - h/2);
-
-                // If clicked on "X" button
-                if (relX > w - 20 && relX < w - 5 && relY > 5 && relY < 20) {
-                    playSound("au.wav"); // Delete sound effect
-                    user.getNotes().remove(text);
-                    if (parentPanel != null) {
-                        parentPanel.displayNotes();
-                    }
-                }
+    private void refreshPanel() {
+        if (parentPanel != null) {
+            parentPanel.displayNotes();
+        }
+    }
+
+    /**
+     * Loads this note's history from disk and lets the user restore a version.
+     * Restoring is itself recorded as a new revision.
+     */
+    private void showHistory() {
+        NoteHistory history = NoteHistory.load(user, user.getNoteId(noteIndex));
+        if (history.size() < 2) {
+            Greenfoot.ask("This note has no earlier versions. (Press Enter)");
+            return;
+        }
+
+        String answer = Greenfoot.ask("This note has " + history.size()
+            + " versions. Enter a version to restore (1-" + history.size() + "), or leave blank:");
+        if (answer == null || answer.trim().isEmpty()) return;
+
+        try {
+            int version = Integer.parseInt(answer.trim());
+            if (version >= 1 && version <= history.size()) {
+                user.updateNote(noteIndex, history.getVersion(version - 1));
             }
+        } catch (NumberFormatException e) {
+            // Not a number, nothing to restore
         }
     }
 
@@ -0,0 +1,228 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * NoteHistory holds the revision history of a single note.
+ *
+ * Histories live on disk, one file per note, and are never part of the
+ * serialized User: a history is only read when someone opens it with
+ * {@link #load(User, long)}. Each revision is stored as a small text delta
+ * against the one before it (common prefix/suffix lengths plus the replaced
+ * middle), with a full checkpoint every {@link #CHECKPOINT_INTERVAL}
+ * revisions so rebuilding any version applies a bounded number of deltas.
+ *
+ * File layout: a header of [int magic][int revisionCount], followed by
+ * records of [byte kind][long timestamp] and either the full text
+ * (checkpoint) or [int prefix][int suffix][inserted text] (delta).
+ */
+public class NoteHistory {
+
+    /** A full copy of the note is written every this many revisions */
+    public static final int CHECKPOINT_INTERVAL = 8;
+
+    private static final int MAGIC = 0x4E484953; // "NHIS"
+    private static final byte CHECKPOINT = 0;
+    private static final byte DELTA = 1;
+
+    private ArrayList<Revision> revisions = new ArrayList<>(); // Raw records, oldest first
+
+    /**
+     * A single stored record: either a checkpoint or a delta.
+     */
+    private static class Revision {
+        byte kind;
+        long timestamp;
+        int prefix, suffix;  // Delta only: characters kept from the previous version
+        String text;         // Full text (checkpoint) or inserted text (delta)
+    }
+
+    private NoteHistory() {}
+
+    /**
+     * Appends a revision to a note's history file.
+     * If the note has no history yet and a previous text is given, that text
+     * is stored first so notes created before history existed keep their original.
+     *
+     * @param user     The user owning the note
+     * @param noteId   Stable id of the note
+     * @param previous The note's text before this change, or null for a new note
+     *                 (which starts a fresh history file)
+     * @param text     The note's new text
+     */
+    public static void record(User user, long noteId, String previous, String text) {
+        File file = fileFor(user, noteId);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // A new note never inherits an old file (ids can repeat if users.dat wasn't saved)
+            if (previous == null) raf.setLength(0);
+
+            int count = 0;
+            if (raf.length() == 0) {
+                raf.writeInt(MAGIC);
+                raf.writeInt(0);
+            } else {
+                raf.seek(4);
+                count = raf.readInt();
+            }
+
+            raf.seek(raf.length());
+            if (count == 0 && previous != null) {
+                writeCheckpoint(raf, previous);
+                count++;
+            }
+            if (count % CHECKPOINT_INTERVAL == 0) {
+                writeCheckpoint(raf, text);
+            } else {
+                writeDelta(raf, previous != null ? previous : "", text);
+            }
+            count++;
+
+            raf.seek(4);
+            raf.writeInt(count);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Deletes a note's history file, e.g. when the note itself is deleted.
+     *
+     * @param user   The user owning the note
+     * @param noteId Stable id of the note
+     */
+    public static void delete(User user, long noteId) {
+        try {
+            Files.deleteIfExists(fileFor(user, noteId).toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads a note's history from disk.
+     * Returns an empty history if the note has never been recorded.
+     *
+     * @param user   The user owning the note
+     * @param noteId Stable id of the note
+     * @return The note's history
+     */
+    public static NoteHistory load(User user, long noteId) {
+        NoteHistory history = new NoteHistory();
+        File file = fileFor(user, noteId);
+        if (!file.exists()) return history;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) return history;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Revision r = new Revision();
+                r.kind = in.readByte();
+                r.timestamp = in.readLong();
+                if (r.kind == DELTA) {
+                    r.prefix = in.readInt();
+                    r.suffix = in.readInt();
+                }
+                r.text = readText(in);
+                history.revisions.add(r);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return history;
+    }
+
+    /**
+     * Returns the number of stored versions.
+     *
+     * @return Version count
+     */
+    public int size() {
+        return revisions.size();
+    }
+
+    /**
+     * Returns the time a version was saved.
+     *
+     * @param version Version index (0 = oldest)
+     * @return Milliseconds since the epoch
+     */
+    public long getTimestamp(int version) {
+        return revisions.get(version).timestamp;
+    }
+
+    /**
+     * Rebuilds the text of a version from the nearest checkpoint at or
+     * before it, applying at most CHECKPOINT_INTERVAL - 1 deltas.
+     *
+     * @param version Version index (0 = oldest)
+     * @return The note's text at that version
+     */
+    public String getVersion(int version) {
+        int start = version;
+        while (revisions.get(start).kind != CHECKPOINT) start--;
+
+        String text = revisions.get(start).text;
+        for (int i = start + 1; i <= version; i++) {
+            Revision r = revisions.get(i);
+            text = text.substring(0, r.prefix) + r.text + text.substring(text.length() - r.suffix);
+        }
+        return text;
+    }
+
+    /**
+     * Writes a full copy of the text.
+     */
+    private static void writeCheckpoint(DataOutput out, String text) throws IOException {
+        out.writeByte(CHECKPOINT);
+        out.writeLong(System.currentTimeMillis());
+        writeText(out, text);
+    }
+
+    /**
+     * Writes the difference between two versions as the lengths of their
+     * common prefix and suffix plus the text that replaced the middle.
+     */
+    private static void writeDelta(DataOutput out, String previous, String text) throws IOException {
+        int max = Math.min(previous.length(), text.length());
+        int prefix = 0;
+        while (prefix < max && previous.charAt(prefix) == text.charAt(prefix)) prefix++;
+
+        int suffix = 0;
+        while (suffix < max - prefix
+                && previous.charAt(previous.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        out.writeByte(DELTA);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(prefix);
+        out.writeInt(suffix);
+        writeText(out, text.substring(prefix, text.length() - suffix));
+    }
+
+    /**
+     * Writes length-prefixed UTF-8 text (not limited to 64KB like writeUTF).
+     */
+    private static void writeText(DataOutput out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads text written by writeText.
+     */
+    private static String readText(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the history file for a note.
+     */
+    private static File fileFor(User user, long noteId) {
+        return new File(DataManager.getUserDir(user, "notes"), noteId + ".hist");
+    }
+}
@@ -3,16 +3,42 @@ import java.util.ArrayList;
 
 /**
  * NotesPanel displays a collection of sticky notes (NoteCards) for a given user.
- * Users can add new notes, and each note can be deleted via the NoteCard interface.
- * Notes are displayed in a grid layout with varying pastel colors.
+ * Users can add new notes, and each note can be edited or deleted via the NoteCard interface.
+ * Notes are displayed in a scrollable grid with varying pastel colors. Only the
+ * rows that fit in the panel have NoteCards; they are recycled as the user
+ * scrolls. The cards are drawn into the panel's own image rather than added
+ * to the world, and each card in view registers its click regions with the
+ * dashboard's InputDispatcher.
  */
 public class NotesPanel extends Actor {
 
+    private static final int COLUMNS = 3;       // Notes per row
+    private static final int COL_SPACING = 150; // Horizontal distance between cards
+    private static final int ROW_SPACING = 140; // Vertical distance between rows
+    private static final int GRID_LEFT = 12;    // Left edge of the first column
+    private static final int GRID_TOP = 66;     // Top edge of the first row
+    private static final int NOTE_WIDTH = 130;  // Size of a note card, shadow included
+    private static final int NOTE_HEIGHT = 140;
+
+    /** Pastel colors for note cards, cycled by note index */
+    private static final greenfoot.Color[] NOTE_COLORS = {
+        new greenfoot.Color(255, 253, 150), // Yellow
+        new greenfoot.Color(255, 200, 200), // Pink
+        new greenfoot.Color(200, 230, 255), // Blue
+        new greenfoot.Color(200, 255, 200), // Green
+        new greenfoot.Color(255, 220, 180), // Peach
+        new greenfoot.Color(230, 200, 255)  // Purple
+    };
+
     private User currentUser;                // The user whose notes are displayed
     private int width, height;               // Width and height of the panel
-    private ArrayList<NoteCard> noteCards = new ArrayList<>();   // Currently displayed note cards
-    private ArrayList<Actor> panelElements = new ArrayList<>(); // All added actors (title, buttons, messages)
+    private NoteCard[] noteCards;            // Recycled cards for the visible rows
+    private ArrayList<Actor> panelElements = new ArrayList<>(); // All added actors (title, buttons)
     private ButtonActor addButton;           // Button to add new notes
+    private ButtonActor upButton, downButton; // Scroll buttons, shown only when needed
+    private ScrollModel scroll;              // Which rows of notes are visible
+    private InputDispatcher input;           // The dashboard's dispatcher, or null
+    private InputDispatcher.Region gridRegion; // Click region of the grid; the notes in view are inside it
 
     /**
      * Constructor for NotesPanel.
@@ -25,30 +51,16 @@ public class NotesPanel extends Actor {
         currentUser = user;
         width = w;
         height = h;
+        scroll = new ScrollModel(Math.max(1, (height - GRID_TOP) / ROW_SPACING));
+        noteCards = new NoteCard[scroll.getVisible() * COLUMNS];
         createPanel();
     }
 
     /**
-     * Initializes panel visual appearance with background and border.
+     * Initializes panel visual appearance with the theme's background and border.
      */
     private void createPanel() {
-        GreenfootImage img = new GreenfootImage(width, height);
-
-        // Beige gradient background
-        for (int i = 0; i < height; i++) {
-            int r = 239 - (i * 10 / height);
-            int g = 232 - (i * 10 / height);
-            int b = 219 - (i * 10 / height);
-            img.setColor(new greenfoot.Color(r, g, b));
-            img.drawLine(0, i, width, i);
-        }
-
-        // Navy border
-        img.setColor(new greenfoot.Color(0, 0, 128));
-        img.drawRect(0, 0, width-1, height-1);
-        img.drawRect(1, 1, width-3, height-3);
-
-        setImage(img);
+        setImage(Theme.current().panelBackground(width, height));
     }
 
     /**
@@ -56,114 +68,164 @@ public class NotesPanel extends Actor {
      * Adds title and "Add Note" button, and displays all current notes.
      */
     protected void addedToWorld(World world) {
+        // Back from the dashboard's page cache: the title and buttons come back with it
+        if (!panelElements.isEmpty()) {
+            if (gridRegion != null) input.restore(gridRegion);
+            return;
+        }
+
         // Add panel title
-        TextLabel title = new TextLabel("My Notes", 32, new greenfoot.Color(0, 0, 128),
+        TextLabel title = new TextLabel("My Notes", 32, Theme.current().accent,
                                         200, 40, new greenfoot.Color(0, 0, 0, 0));
         world.addObject(title, getX(), getY() - (height/2) + 30);
         panelElements.add(title);
 
-        // Add "Add Note" button
+        // Add "Add Note" button, beside the title so it never covers a note
         addButton = new ButtonActor("+ New Note", 239, 232, 219, 0, 0, 128, 130, 40) {
             public void onClick() {
                 String note = Greenfoot.ask("Enter new note:");
                 if (note != null && !note.trim().isEmpty()) {
-                    currentUser.getNotes().add(note.trim());
+                    currentUser.addNote(note.trim());
                     displayNotes();
                 }
             }
         };
-        world.addObject(addButton, getX(), getY() - (height/2) + 80);
+        world.addObject(addButton, getX() + width/2 - 80, getY() - (height/2) + 30);
         panelElements.add(addButton);
 
+        // The grid's click region; the notes in view are registered inside it
+        input = InputDispatcher.of(world);
+        if (input != null) {
+            gridRegion = input.add(this, getX() - width/2 + GRID_LEFT, getY() - height/2 + GRID_TOP,
+                                   COLUMNS * COL_SPACING, scroll.getVisible() * ROW_SPACING, null);
+        }
+
+        // Scroll buttons (added to the world by displayNotes when needed)
+        upButton = new ButtonActor("▲", 239, 232, 219, 0, 0, 128, 30, 30) {
+            public void onClick() {
+                if (scroll.scrollBy(-1)) bindVisibleNotes();
+            }
+        };
+        downButton = new ButtonActor("▼", 239, 232, 219, 0, 0, 128, 30, 30) {
+            public void onClick() {
+                if (scroll.scrollBy(1)) bindVisibleNotes();
+            }
+        };
+
         // Display existing notes
         displayNotes();
     }
 
     /**
-     * Displays all notes of the current user in a grid layout.
-     * Pastel colors are cycled for visual variety. Clears old notes before adding new ones.
+     * Scrolls the grid with the arrow keys. Clicks on the notes arrive through the InputDispatcher.
+     */
+    public void act() {
+        long start = Profiler.start();
+        if (scroll.pollArrowKeys()) {
+            bindVisibleNotes();
+        }
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Re-reads the user's notes and refreshes the grid, keeping the current
+     * scroll position where possible.
      */
     public void displayNotes() {
         World world = getWorld();
-        if (world != null) {
-            // Remove previous note cards
-            for (NoteCard card : noteCards) {
-                if (card.getWorld() != null) {
-                    world.removeObject(card);
-                    panelElements.remove(card);
-                }
-            }
-        }
-        noteCards.clear();
+        if (world == null) return;
 
-        // Remove previous empty message
-        for (Actor a : new ArrayList<>(panelElements)) {
-            if (a instanceof TextLabel && a != panelElements.get(0)) { // Skip title
-                if (a.getWorld() != null) {
-                    world.removeObject(a);
-                }
-                panelElements.remove(a);
-            }
-        }
+        ArrayList<String> notes = currentUser.getNotes();
+        scroll.setTotal((notes.size() + COLUMNS - 1) / COLUMNS);
+
+        // Scroll buttons only when the notes don't fit
+        int buttonX = getX() + width/2 - 30;
+        showIf(world, upButton, scroll.isScrollable(), buttonX, getY() - (height/2) + 80);
+        showIf(world, downButton, scroll.isScrollable(), buttonX, getY() + (height/2) - 25);
+
+        bindVisibleNotes();
+    }
 
+    /**
+     * Binds the pooled NoteCards to the notes in the visible rows and draws
+     * them into the panel image, or an empty message if there are no notes.
+     * Cards are created on first use and reused afterwards.
+     */
+    private void bindVisibleNotes() {
+        long start = Profiler.start();
+        Theme theme = Theme.current();
+        GreenfootImage img = new GreenfootImage(theme.panelBackground(width, height));
         ArrayList<String> notes = currentUser.getNotes();
+        if (gridRegion != null) input.removeChildren(gridRegion);
 
         // Display empty message if no notes
         if (notes.isEmpty()) {
-            TextLabel emptyMsg = new TextLabel(
-                "No notes yet. Click '+ New Note' to add one!", 18,
-                new greenfoot.Color(80, 60, 40), 400, 30,
-                new greenfoot.Color(0, 0, 0, 0)
-            );
-            if (world != null) {
-                world.addObject(emptyMsg, getX(), getY());
-                panelElements.add(emptyMsg);
-            }
-            return;
+            img.setColor(theme.mutedText);
+            TextLayout.drawCentered(img, "No notes yet. Click '+ New Note' to add one!", Theme.MESSAGE_FONT, width/2, height/2 + 6);
         }
 
-        // Grid layout
-        int startX = getX() - 200;
-        int startY = getY() - (height/2) + 140;
-        int col = 0;
-        int row = 0;
-        int spacing = 150;
-
-        // Pastel colors for note cards
-        greenfoot.Color[] colors = {
-            new greenfoot.Color(255, 253, 150), // Yellow
-            new greenfoot.Color(255, 200, 200), // Pink
-            new greenfoot.Color(200, 230, 255), // Blue
-            new greenfoot.Color(200, 255, 200), // Green
-            new greenfoot.Color(255, 220, 180), // Peach
-            new greenfoot.Color(230, 200, 255)  // Purple
-        };
+        int firstNote = scroll.getFirst() * COLUMNS;
+        for (int slot = 0; slot < noteCards.length; slot++) {
+            int index = firstNote + slot;
+            if (index >= notes.size()) break;
+
+            greenfoot.Color cardColor = NOTE_COLORS[index % NOTE_COLORS.length];
+            NoteCard card = noteCards[slot];
+            if (card == null) {
+                card = new NoteCard(index, notes.get(index), cardColor, currentUser, this);
+                noteCards[slot] = card;
+            } else {
+                card.bind(index, notes.get(index), cardColor);
+            }
 
-        int colorIndex = 0;
-        for (String note : notes) {
-            greenfoot.Color cardColor = colors[colorIndex % colors.length];
-            NoteCard card = new NoteCard(note, cardColor, currentUser, this);
+            int x = GRID_LEFT + (slot % COLUMNS) * COL_SPACING;
+            int y = GRID_TOP + (slot / COLUMNS) * ROW_SPACING;
+            img.drawImage(card.getImage(), x, y);
+            if (gridRegion != null) {
+                card.addHitRegions(input, input.add(gridRegion, x - GRID_LEFT, y - GRID_TOP, NOTE_WIDTH, NOTE_HEIGHT, null));
+            }
+        }
 
-            int x = startX + (col * spacing);
-            int y = startY + (row * 140);
+        setImage(img);
+        Profiler.stop(this, "bindVisibleNotes", start);
+    }
 
-            if (world != null) {
-                world.addObject(card, x, y);
-                noteCards.add(card);
-                panelElements.add(card);
-            }
+    /**
+     * Copies a note's new image into the panel image, over a fresh piece of
+     * the background since notes have a see-through shadow. Nothing is drawn
+     * if the note is not in view.
+     *
+     * @param card The note whose image changed
+     */
+    public void noteChanged(NoteCard card) {
+        int slot = 0;
+        while (slot < noteCards.length && noteCards[slot] != card) slot++;
+        int index = scroll.getFirst() * COLUMNS + slot;
+        if (slot == noteCards.length || index >= currentUser.getNotes().size()) return;
+
+        int x = GRID_LEFT + (slot % COLUMNS) * COL_SPACING;
+        int y = GRID_TOP + (slot / COLUMNS) * ROW_SPACING;
+        GreenfootImage patch = new GreenfootImage(NOTE_WIDTH, NOTE_HEIGHT);
+        patch.drawImage(Theme.current().panelBackground(width, height), -x, -y);
+        patch.drawImage(card.getImage(), 0, 0);
+        getImage().drawImage(patch, x, y);
+    }
 
-            col++;
-            if (col >= 3) { // 3 notes per row
-                col = 0;
-                row++;
-            }
-            colorIndex++;
+    /**
+     * Adds or removes a panel actor depending on a condition.
+     */
+    private void showIf(World world, Actor actor, boolean show, int x, int y) {
+        if (show && actor.getWorld() == null) {
+            world.addObject(actor, x, y);
+            panelElements.add(actor);
+        } else if (!show && actor.getWorld() != null) {
+            world.removeObject(actor);
+            panelElements.remove(actor);
         }
     }
 
     /**
-     * Removes all elements (notes, title, buttons) from the panel.
+     * Removes all elements (title, buttons) from the panel.
      * Useful when switching worlds or cleaning up.
      */
     public void removeAllElements() {
@@ -176,7 +238,6 @@ public class NotesPanel extends Actor {
             }
         }
         panelElements.clear();
-        noteCards.clear();
     }
 }
 
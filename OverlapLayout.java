@@ -0,0 +1,171 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OverlapLayout places a day's timed events side by side so overlapping
+ * events don't cover each other, the way calendar apps lay out a day.
+ *
+ * Events are swept in start order (as returned by the interval-indexed
+ * event store). Each goes into the leftmost column that is free at its
+ * start time. A run of events that overlap one another, directly or
+ * through a chain, forms a cluster, and every event in a cluster shares
+ * its column count. This is O(n * c) for n events and c columns.
+ *
+ * Results are cached per day together with a signature of the events
+ * they were computed from. A day is only laid out again when its events
+ * change, so redrawing a week after one edit re-lays out a single column.
+ */
+public class OverlapLayout {
+
+    /** Maximum number of days whose layout is kept */
+    private static final int MAX_CACHED_DAYS = 64;
+
+    /**
+     * Where one event goes in a day column.
+     */
+    public static class Block {
+        private final Event event;     // The event shown
+        private final long start, end; // Its time range clipped to the day, in minutes
+        private int column;            // Column index within its cluster, from 0
+        private int columns;           // Number of columns its cluster needs
+
+        private Block(Event event, long start, long end) {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+        }
+
+        /** Returns the event shown by this block */
+        public Event getEvent() {
+            return event;
+        }
+
+        /** Returns the start within the day, in minutes after midnight */
+        public int getStartMinute() {
+            return (int) Math.floorMod(start, (long) Event.MINUTES_PER_DAY);
+        }
+
+        /** Returns the end within the day, in minutes after midnight (up to 1440) */
+        public int getEndMinute() {
+            return getStartMinute() + (int) (end - start);
+        }
+
+        /** Returns the column the block is drawn in, from 0 */
+        public int getColumn() {
+            return column;
+        }
+
+        /** Returns how many columns the block's cluster is split into */
+        public int getColumns() {
+            return columns;
+        }
+    }
+
+    /**
+     * A cached layout and the events it was computed from.
+     */
+    private static class CachedDay {
+        String signature;
+        List<Block> blocks;
+    }
+
+    private Map<Long, CachedDay> cache = new LinkedHashMap<Long, CachedDay>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedDay> eldest) {
+            return size() > MAX_CACHED_DAYS;
+        }
+    };                                  // Layouts by epoch-day, least recently used first
+    private int layoutCount;            // Number of days actually laid out (not served from cache)
+
+    /**
+     * Returns the blocks for a day's timed events, reusing the previous
+     * layout if the events have not changed. All-day events are ignored.
+     *
+     * @param epochDay The day, as days since 1970-01-01
+     * @param events   The events overlapping that day, ordered by start time
+     * @return The blocks, in start order
+     */
+    public List<Block> layoutDay(long epochDay, List<Event> events) {
+        String signature = signature(events);
+        CachedDay cached = cache.get(epochDay);
+        if (cached != null && cached.signature.equals(signature)) return cached.blocks;
+
+        cached = new CachedDay();
+        cached.signature = signature;
+        cached.blocks = Collections.unmodifiableList(pack(epochDay, events));
+        cache.put(epochDay, cached);
+        layoutCount++;
+        return cached.blocks;
+    }
+
+    /**
+     * Returns how many days have been laid out rather than served from the cache.
+     *
+     * @return Layout count
+     */
+    public int getLayoutCount() {
+        return layoutCount;
+    }
+
+    /**
+     * Assigns columns to the day's timed events in one sweep.
+     */
+    private static List<Block> pack(long epochDay, List<Event> events) {
+        long dayStart = epochDay * Event.MINUTES_PER_DAY;
+        long dayEnd = dayStart + Event.MINUTES_PER_DAY;
+
+        ArrayList<Block> blocks = new ArrayList<>();
+        ArrayList<Long> columnEnds = new ArrayList<>(); // End of the last block in each column
+        int clusterStart = 0;
+        long clusterEnd = Long.MIN_VALUE;
+
+        for (Event event : events) {
+            if (event.isAllDay()) continue;
+            // Clipping keeps the order: events from the previous day all start at midnight
+            Block block = new Block(event, Math.max(event.getStart(), dayStart), Math.min(event.getEnd(), dayEnd));
+
+            // Nothing still running: the previous cluster is complete
+            if (block.start >= clusterEnd) {
+                finishCluster(blocks, clusterStart, columnEnds.size());
+                columnEnds.clear();
+                clusterStart = blocks.size();
+            }
+
+            int column = 0;
+            while (column < columnEnds.size() && columnEnds.get(column) > block.start) column++;
+            if (column == columnEnds.size()) {
+                columnEnds.add(block.end);
+            } else {
+                columnEnds.set(column, block.end);
+            }
+            block.column = column;
+            clusterEnd = Math.max(clusterEnd, block.end);
+            blocks.add(block);
+        }
+        finishCluster(blocks, clusterStart, columnEnds.size());
+        return blocks;
+    }
+
+    /**
+     * Gives every block of a finished cluster the cluster's column count.
+     */
+    private static void finishCluster(List<Block> blocks, int from, int columns) {
+        for (int i = from; i < blocks.size(); i++) {
+            blocks.get(i).columns = columns;
+        }
+    }
+
+    /**
+     * Summarizes what the layout of a day depends on.
+     */
+    private static String signature(List<Event> events) {
+        StringBuilder text = new StringBuilder();
+        for (Event event : events) {
+            if (event.isAllDay()) continue;
+            text.append(event.getId()).append(':').append(event.getStart()).append(':').append(event.getEnd()).append(';');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,229 @@
+import greenfoot.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profiler measures where the dashboard's frames go: how long each actor
+ * class spends in act() and in drawing its image (updateImage() and the
+ * panels' redraws), how long whole frames take, how many actors the world
+ * holds and how much heap is in use. DashboardWorld shows the results in a
+ * ProfilerHud when F3 is pressed.
+ *
+ * Widgets bracket the methods to measure:
+ * <pre>
+ *     long start = Profiler.start();
+ *     ...
+ *     Profiler.stop(this, "act", start);
+ * </pre>
+ * While the profiler is off, start() returns 0 after reading one flag and
+ * stop() returns at once, so the brackets cost next to nothing.
+ *
+ * Times are inclusive: an act() that redraws a panel also counts the
+ * redraw. A frame's work is the world's act() plus the actors' act()s; the
+ * frame time is the time between the starts of two frames, so it includes
+ * the delay Greenfoot adds for its speed setting. Results are summed over
+ * one second and then published as a report, so the numbers shown are
+ * per-frame averages over the last second. Only the Greenfoot thread may
+ * call it.
+ */
+public class Profiler {
+
+    /** Number of recent frames kept for the percentiles */
+    private static final int WINDOW = 240;
+
+    /** Number of slowest methods listed in a report */
+    private static final int TOP = 5;
+
+    /** Nanoseconds summed before a report is published */
+    private static final long PERIOD = 1000000000L;
+
+    private static boolean enabled;                     // Whether anything is measured
+    private static long frameStart;                     // When the current frame started, 0 before the first
+    private static long frameWork;                      // Nanoseconds spent in act() this frame
+    private static final long[] frameTimes = new long[WINDOW]; // Recent frame times, as a ring
+    private static final long[] workTimes = new long[WINDOW];  // Recent frame work, as a ring
+    private static int frames;                          // Frames recorded since enabled
+    private static long periodStart;                    // When the current period started
+    private static int periodFrames;                    // Frames in the current period
+    private static final HashMap<String, long[]> totals = new HashMap<>(); // "Class.method" -> {nanoseconds, calls} this period
+    private static final HashMap<Class<?>, String> names = new HashMap<>(); // Display name per class
+    private static List<String> report = Collections.emptyList(); // Lines of the last report
+    private static int reports;                         // Reports published so far
+
+    private Profiler() {}
+
+    /**
+     * Turns measuring on or off. Turning it on starts from empty results.
+     *
+     * @param on Whether to measure
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+        frameStart = 0;
+        frameWork = 0;
+        frames = 0;
+        periodFrames = 0;
+        periodStart = System.nanoTime();
+        totals.clear();
+        report = Collections.emptyList();
+    }
+
+    /** Returns true while measuring */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a method.
+     *
+     * @return The start time to pass to {@link #stop}, or 0 if the profiler is off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops timing a method and adds the time to its class and method name.
+     * An act() also counts towards the frame's work.
+     *
+     * @param owner  The object whose method ran
+     * @param method The method's name, e.g. "act" or "updateImage"
+     * @param start  What {@link #start} returned
+     */
+    public static void stop(Object owner, String method, long start) {
+        if (start == 0 || !enabled) return;
+        long elapsed = System.nanoTime() - start;
+        String key = nameOf(owner.getClass()) + "." + method;
+        long[] total = totals.get(key);
+        if (total == null) {
+            total = new long[2];
+            totals.put(key, total);
+        }
+        total[0] += elapsed;
+        total[1]++;
+        if (method.equals("act")) frameWork += elapsed;
+    }
+
+    /**
+     * Marks the start of a frame, closing the previous one, and publishes a
+     * report once a second. DashboardWorld calls it first thing in act().
+     *
+     * @param world The world being profiled, for its actor counts
+     * @return The frame's start time, to pass to {@link #stop} for the world's act(), or 0 if the profiler is off
+     */
+    public static long frame(World world) {
+        if (!enabled) return 0;
+        long now = System.nanoTime();
+        if (frameStart != 0) {
+            frameTimes[frames % WINDOW] = now - frameStart;
+            workTimes[frames % WINDOW] = frameWork;
+            frames++;
+            periodFrames++;
+        }
+        frameStart = now;
+        frameWork = 0;
+
+        if (now - periodStart >= PERIOD && periodFrames > 0) {
+            report = summarize(world, now - periodStart);
+            reports++;
+            totals.clear();
+            periodFrames = 0;
+            periodStart = now;
+        }
+        return now;
+    }
+
+    /**
+     * Returns the lines of the last report, empty until the first second has passed.
+     *
+     * @return The report
+     */
+    public static List<String> getReport() {
+        return report;
+    }
+
+    /**
+     * Returns how many reports were published, so a display can tell when to redraw.
+     *
+     * @return The number of reports
+     */
+    public static int getReportCount() {
+        return reports;
+    }
+
+    /**
+     * Builds the report for the period that just ended.
+     */
+    private static List<String> summarize(World world, long periodNanos) {
+        ArrayList<String> lines = new ArrayList<>();
+        int kept = Math.min(frames, WINDOW);
+        lines.add(String.format("FPS %.1f", periodFrames * 1e9 / periodNanos));
+        lines.add(String.format("frame p50 %.1f  p99 %.1f ms", percentile(frameTimes, kept, 50), percentile(frameTimes, kept, 99)));
+        lines.add(String.format("work  p50 %.2f  p99 %.2f ms", percentile(workTimes, kept, 50), percentile(workTimes, kept, 99)));
+
+        // Slowest methods, by time per frame
+        ArrayList<Map.Entry<String, long[]>> slowest = new ArrayList<>(totals.entrySet());
+        Collections.sort(slowest, new Comparator<Map.Entry<String, long[]>>() {
+            public int compare(Map.Entry<String, long[]> a, Map.Entry<String, long[]> b) {
+                return Long.compare(b.getValue()[0], a.getValue()[0]);
+            }
+        });
+        for (int i = 0; i < Math.min(TOP, slowest.size()); i++) {
+            long[] total = slowest.get(i).getValue();
+            lines.add(String.format("%-26s %.3f ms %.2fx", slowest.get(i).getKey(),
+                                    total[0] / 1e6 / periodFrames, (double) total[1] / periodFrames));
+        }
+
+        // Actors by class
+        HashMap<String, Integer> counts = new HashMap<>();
+        for (Actor actor : world.getObjects(Actor.class)) {
+            String name = nameOf(actor.getClass());
+            Integer count = counts.get(name);
+            counts.put(name, count == null ? 1 : count + 1);
+        }
+        String most = "";
+        int mostCount = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > mostCount) {
+                most = entry.getKey();
+                mostCount = entry.getValue();
+            }
+        }
+        lines.add("actors " + world.numberOfObjects() + (mostCount > 0 ? "  most " + most + " " + mostCount : ""));
+
+        Runtime runtime = Runtime.getRuntime();
+        lines.add(String.format("heap %d / %d MB", (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20));
+        lines.add("images cached " + ImageCache.size() + "  hits " + ImageCache.getHits() + "  misses " + ImageCache.getMisses());
+        return lines;
+    }
+
+    /**
+     * Returns a percentile of the first count values, in milliseconds.
+     */
+    private static double percentile(long[] values, int count, int percent) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, count * percent / 100)] / 1e6;
+    }
+
+    /**
+     * Returns the name to report a class under. Anonymous subclasses, such
+     * as the panels' ButtonActors, are reported as the class they extend.
+     */
+    private static String nameOf(Class<?> type) {
+        String name = names.get(type);
+        if (name == null) {
+            Class<?> named = type;
+            while (named.isAnonymousClass()) named = named.getSuperclass();
+            name = named.getSimpleName();
+            names.put(type, name);
+        }
+        return name;
+    }
+}
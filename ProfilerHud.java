@@ -0,0 +1,70 @@
+import greenfoot.*;
+import java.util.List;
+
+/**
+ * ProfilerHud is the overlay DashboardWorld shows when F3 is pressed. It
+ * prints the Profiler's latest report (FPS, frame times, the slowest
+ * methods, actor counts and heap use) on a translucent box, and redraws
+ * only when a new report is published, about once a second.
+ */
+public class ProfilerHud extends Actor {
+
+    /** Width of the overlay */
+    public static final int WIDTH = 300;
+
+    private static final int LINE_HEIGHT = 14;   // Distance between lines of text
+    private static final Font FONT = new Font("Monospaced", false, false, 11);
+
+    private IdleGovernor governor;               // Reports whether the frame rate is lowered
+    private int shownReport = -1;                // Report number on screen
+
+    /**
+     * Creates the overlay.
+     *
+     * @param governor The world's idle governor, to show when the frame rate is lowered
+     */
+    public ProfilerHud(IdleGovernor governor) {
+        this.governor = governor;
+        updateImage();
+    }
+
+    /**
+     * Redraws the overlay when the Profiler published a new report.
+     */
+    public void act() {
+        if (Profiler.getReportCount() != shownReport) {
+            updateImage();
+        }
+    }
+
+    /**
+     * Draws the report's lines on a translucent black box sized to fit them.
+     */
+    private void updateImage() {
+        shownReport = Profiler.getReportCount();
+        List<String> lines = Profiler.getReport();
+        int count = Math.max(1, lines.size()) + 1;
+
+        GreenfootImage img = new GreenfootImage(WIDTH, count * LINE_HEIGHT + 8);
+        img.setColor(new greenfoot.Color(0, 0, 0, 190));
+        img.fill();
+        img.setFont(FONT);
+
+        img.setColor(new greenfoot.Color(255, 220, 90));
+        img.drawString("F3 profiler" + (governor != null && governor.isIdle() ? "  (idle, slowed)" : ""), 6, LINE_HEIGHT);
+        img.setColor(new greenfoot.Color(255, 255, 255));
+        if (lines.isEmpty()) {
+            img.drawString("measuring...", 6, 2 * LINE_HEIGHT);
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            img.drawString(lines.get(i), 6, (i + 2) * LINE_HEIGHT);
+        }
+
+        // Keep the top-right corner in place when the height changes
+        int oldHeight = getImage() != null ? getImage().getHeight() : img.getHeight();
+        setImage(img);
+        if (getWorld() != null && oldHeight != img.getHeight()) {
+            setLocation(getX(), getY() + (img.getHeight() - oldHeight) / 2);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+
+/**
+ * RecurrenceRule describes how a calendar event repeats, in the spirit of
+ * an iCalendar RRULE: daily, weekly (optionally on several weekdays) or
+ * monthly, every N periods, with an optional end date and skipped dates.
+ *
+ * A rule is stored once with its event. Occurrences are never stored; they
+ * are generated on demand for a date window by {@link #expand}, which only
+ * visits periods inside the window, so a rule running for years costs the
+ * same to show as one running for a week.
+ */
+public class RecurrenceRule implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Repeat every N days */
+    public static final int DAILY = 0;
+
+    /** Repeat every N weeks */
+    public static final int WEEKLY = 1;
+
+    /** Repeat every N months on the same day of the month */
+    public static final int MONTHLY = 2;
+
+    private int frequency;      // DAILY, WEEKLY or MONTHLY
+    private int interval;       // Repeat every this many periods (1 = every period)
+    private int weekdays;       // WEEKLY only: bit d set = repeat on weekday d (0 = Sunday); 0 = the start's weekday
+    private long until = Long.MAX_VALUE;           // Last day an occurrence may start on (inclusive)
+    private HashSet<Long> exceptions = new HashSet<>(); // Days whose occurrence was removed
+
+    /**
+     * Receives the start day of each occurrence produced by {@link #expand}.
+     */
+    public interface OccurrenceSink {
+        void occurrence(long epochDay);
+    }
+
+    /**
+     * Constructs a rule repeating every period with no end date.
+     *
+     * @param frequency DAILY, WEEKLY or MONTHLY
+     */
+    public RecurrenceRule(int frequency) {
+        this(frequency, 1);
+    }
+
+    /**
+     * Constructs a rule repeating every N periods with no end date.
+     *
+     * @param frequency DAILY, WEEKLY or MONTHLY
+     * @param interval  Number of periods between occurrences (at least 1)
+     */
+    public RecurrenceRule(int frequency, int interval) {
+        if (frequency < DAILY || frequency > MONTHLY) throw new IllegalArgumentException("Unknown frequency " + frequency);
+        this.frequency = frequency;
+        this.interval = Math.max(1, interval);
+    }
+
+    /** Returns DAILY, WEEKLY or MONTHLY */
+    public int getFrequency() {
+        return frequency;
+    }
+
+    /** Returns the number of periods between occurrences */
+    public int getInterval() {
+        return interval;
+    }
+
+    /** Returns the weekday mask (bit 0 = Sunday), 0 meaning the start's weekday */
+    public int getWeekdays() {
+        return weekdays;
+    }
+
+    /**
+     * Sets the weekdays a WEEKLY rule repeats on.
+     *
+     * @param weekdays Bit d set = repeat on weekday d (0 = Sunday ... 6 = Saturday)
+     */
+    public void setWeekdays(int weekdays) {
+        this.weekdays = weekdays & 0x7F;
+    }
+
+    /** Returns the last day an occurrence may start on, or Long.MAX_VALUE */
+    public long getUntil() {
+        return until;
+    }
+
+    /**
+     * Sets the last day an occurrence may start on.
+     *
+     * @param epochDay Days since 1970-01-01 (inclusive)
+     */
+    public void setUntil(long epochDay) {
+        this.until = epochDay;
+    }
+
+    /**
+     * Skips the occurrence starting on a day.
+     *
+     * @param epochDay Days since 1970-01-01
+     */
+    public void addException(long epochDay) {
+        exceptions.add(epochDay);
+    }
+
+    /** Returns the days whose occurrences are skipped */
+    public HashSet<Long> getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Produces the start day of every occurrence that starts within
+     * [fromDay, toDay], in date order, skipping exceptions.
+     *
+     * @param firstDay The day the series starts (its first occurrence)
+     * @param fromDay  First day of the window (inclusive)
+     * @param toDay    Last day of the window (inclusive)
+     * @param sink     Receives each occurrence's start day
+     */
+    public void expand(long firstDay, long fromDay, long toDay, OccurrenceSink sink) {
+        expand(firstDay, fromDay, toDay, sink, true);
+    }
+
+    /**
+     * Ends the rule after a number of occurrences (like an iCalendar COUNT),
+     * by setting the end date to the day of the last one. Skipped days still
+     * count, as in iCalendar.
+     *
+     * @param firstDay The day the series starts
+     * @param count    Total number of occurrences
+     */
+    public void limitToCount(long firstDay, final int count) {
+        final long[] seen = new long[2]; // [occurrences so far, day of the last one]
+        long windowStart = firstDay;
+        // Windows of a year keep this bounded; give up after a few centuries of nothing
+        for (int window = 0; window < 400 && seen[0] < count && windowStart <= until; window++) {
+            expand(firstDay, windowStart, windowStart + 365, new OccurrenceSink() {
+                public void occurrence(long epochDay) {
+                    if (seen[0]++ < count) seen[1] = epochDay;
+                }
+            }, false);
+            windowStart += 366;
+        }
+        if (seen[0] >= count) until = Math.min(until, seen[1]);
+    }
+
+    /**
+     * Produces occurrence start days within a window, optionally skipping exceptions.
+     */
+    private void expand(long firstDay, long fromDay, long toDay, OccurrenceSink sink, boolean skipExceptions) {
+        long from = Math.max(fromDay, firstDay);
+        long to = Math.min(toDay, until);
+        if (from > to) return;
+
+        if (frequency == DAILY) {
+            // First multiple of the interval on or after the window start
+            long step = ceilDiv(from - firstDay, interval);
+            for (long day = firstDay + step * interval; day <= to; day += interval) {
+                emit(day, sink, skipExceptions);
+            }
+        } else if (frequency == WEEKLY) {
+            int mask = weekdays != 0 ? weekdays : 1 << weekday(firstDay);
+            long anchor = firstDay - weekday(firstDay);          // Sunday of the first week
+            long week = ceilDiv(Math.floorDiv(from - anchor, 7), interval) * interval;
+            for (long weekStart = anchor + week * 7; weekStart <= to; weekStart += 7L * interval) {
+                for (int d = 0; d < 7; d++) {
+                    long day = weekStart + d;
+                    if ((mask & (1 << d)) != 0 && day >= from && day <= to) emit(day, sink, skipExceptions);
+                }
+            }
+        } else {
+            LocalDate first = LocalDate.ofEpochDay(firstDay);
+            YearMonth firstMonth = YearMonth.from(first);
+            long monthsIn = ChronoUnit.MONTHS.between(firstMonth, YearMonth.from(LocalDate.ofEpochDay(from)));
+            long step = ceilDiv(Math.max(0, monthsIn), interval) * interval;
+            for (YearMonth month = firstMonth.plusMonths(step); month.atDay(1).toEpochDay() <= to; month = month.plusMonths(interval)) {
+                // Months without this day (e.g. the 31st) are skipped, as in iCalendar
+                if (first.getDayOfMonth() > month.lengthOfMonth()) continue;
+                long day = month.atDay(first.getDayOfMonth()).toEpochDay();
+                if (day >= from && day <= to) emit(day, sink, skipExceptions);
+            }
+        }
+    }
+
+    /**
+     * Passes a day to the sink unless it is a skipped exception.
+     */
+    private void emit(long day, OccurrenceSink sink, boolean skipExceptions) {
+        if (!skipExceptions || !exceptions.contains(day)) sink.occurrence(day);
+    }
+
+    /**
+     * Returns the weekday of a day, 0 = Sunday ... 6 = Saturday.
+     */
+    static int weekday(long epochDay) {
+        return (int) Math.floorMod(epochDay + 4, 7L); // 1970-01-01 was a Thursday
+    }
+
+    /**
+     * Integer division rounding up, for non-negative divisors.
+     */
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
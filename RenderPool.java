@@ -0,0 +1,164 @@
+import greenfoot.*;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RenderPool draws card images off the Greenfoot thread. A card submits a
+ * job that rasterizes into a plain AWT BufferedImage on a ForkJoin pool and
+ * shows a placeholder meanwhile; the finished images are handed back on the
+ * Greenfoot thread by {@link #deliver}, which DashboardWorld calls once per
+ * frame. Opening a page with many cards therefore only copies placeholders,
+ * and the cards fill in a frame or two later.
+ *
+ * A job runs concurrently with the game loop, so it must only read what it
+ * was given when it was submitted: a snapshot of the card's data and images
+ * that are never drawn on again, such as the theme's cached backgrounds.
+ * Cards ignore images of jobs that were overtaken by a newer one.
+ */
+public class RenderPool {
+
+    /**
+     * Draws an image. Runs on a pool thread.
+     */
+    public interface Job {
+        /** Returns the newly drawn image */
+        BufferedImage render();
+    }
+
+    /**
+     * Receives a finished image. Runs on the Greenfoot thread.
+     */
+    public interface Target {
+        /** @param image The image the job drew */
+        void rendered(GreenfootImage image);
+    }
+
+    /**
+     * A finished image waiting to be delivered.
+     */
+    private static class Finished {
+        private final BufferedImage image;      // What the job drew
+        private final Target target;            // Who receives it
+
+        private Finished(BufferedImage image, Target target) {
+            this.image = image;
+            this.target = target;
+        }
+    }
+
+    /** Worker threads, leaving one core to the Greenfoot thread; they are daemon threads */
+    private static final ForkJoinPool pool =
+        new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ConcurrentLinkedQueue<Finished> finished = new ConcurrentLinkedQueue<>(); // Images not delivered yet
+    private static final AtomicInteger pending = new AtomicInteger(); // Jobs submitted and not delivered yet
+
+    private RenderPool() {}
+
+    /**
+     * Queues a job. Its image is passed to the target by a later {@link #deliver}.
+     * If the job throws, the target gets nothing and keeps its placeholder.
+     *
+     * @param job    Draws the image on a pool thread
+     * @param target Receives the image on the Greenfoot thread
+     */
+    public static void submit(final Job job, final Target target) {
+        pending.incrementAndGet();
+        pool.execute(new Runnable() {
+            public void run() {
+                boolean queued = false;
+                try {
+                    finished.add(new Finished(job.render(), target));
+                    queued = true;
+                } finally {
+                    // A job that threw is never delivered, so stop counting it
+                    if (!queued) pending.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Hands every finished image to its target as a GreenfootImage.
+     * Must be called on the Greenfoot thread.
+     *
+     * @return The number of images delivered
+     */
+    public static int deliver() {
+        int count = 0;
+        Finished done;
+        while ((done = finished.poll()) != null) {
+            done.target.rendered(toGreenfootImage(done.image));
+            count++;
+        }
+        pending.addAndGet(-count);
+        return count;
+    }
+
+    /**
+     * Returns true while submitted jobs have not been delivered, i.e. some
+     * cards still show a placeholder.
+     *
+     * @return Whether images are on their way
+     */
+    public static boolean isBusy() {
+        return pending.get() > 0;
+    }
+
+    /**
+     * Wraps an image drawn in the background as a GreenfootImage.
+     * Must be called on the Greenfoot thread.
+     *
+     * @param drawn The finished image, no longer drawn on by any other thread
+     * @return A GreenfootImage with the same pixels
+     */
+    public static GreenfootImage toGreenfootImage(BufferedImage drawn) {
+        GreenfootImage image = new GreenfootImage(drawn.getWidth(), drawn.getHeight());
+        Graphics2D g = image.getAwtImage().createGraphics();
+        g.drawImage(drawn, 0, 0, null);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Returns a copy of a shared image to draw a card on, e.g. a theme
+     * background. Safe on a pool thread as long as the source is never drawn on.
+     *
+     * @param source The image to copy
+     * @return A new image with the same pixels
+     */
+    public static BufferedImage copy(GreenfootImage source) {
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.drawImage(source.getAwtImage(), 0, 0, null);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Returns a graphics context for an image with antialiased text.
+     * Dispose it when done.
+     *
+     * @param image The image to draw on
+     * @return The graphics context
+     */
+    public static Graphics2D graphics(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return g;
+    }
+
+    /**
+     * Converts a Greenfoot color to the equivalent AWT color.
+     *
+     * @param color The Greenfoot color
+     * @return AWT color with the same components
+     */
+    public static java.awt.Color toAwtColor(greenfoot.Color color) {
+        return new java.awt.Color(color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha());
+    }
+}
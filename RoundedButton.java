@@ -33,20 +33,24 @@ public abstract class RoundedButton extends Actor {
     }
 
     /**
-     * Draws the button image with background and centered text.
+     * Draws the button image with background and centered text, or reuses
+     * an identical button's image from {@link ImageCache}.
      */
     private void updateImage() {
-        GreenfootImage img = new GreenfootImage(width, height);
+        setImage(ImageCache.get(ImageCache.key("RoundedButton", label, width, height, bg, text), new ImageCache.Renderer() {
+            public GreenfootImage render() {
+                GreenfootImage img = new GreenfootImage(width, height);
 
-        // Set button background
-        img.setColor(bg);
-        img.fill(); // Fill the entire rectangle with bg color
+                // Set button background
+                img.setColor(bg);
+                img.fill(); // Fill the entire rectangle with bg color
 
-        // Draw centered text
-        GreenfootImage textImg = new GreenfootImage(label, 24, text, new Color(0,0,0,0));
-        img.drawImage(textImg, (width - textImg.getWidth()) / 2, (height - textImg.getHeight()) / 2);
-
-        setImage(img);
+                // Draw centered text
+                GreenfootImage textImg = new GreenfootImage(label, 24, text, new Color(0,0,0,0));
+                img.drawImage(textImg, (width - textImg.getWidth()) / 2, (height - textImg.getHeight()) / 2);
+                return img;
+            }
+        }));
     }
 
     /**
@@ -6,13 +6,26 @@ import java.util.ArrayList;
  * It shows pending and completed assignments, allows adding new tasks, and
  * organizes tasks using SchoolTaskCard objects. It also manages cleanup of
  * its elements when needed.
+ *
+ * Like TaskPanel, it is composited: the cards are drawn into the panel's
+ * image and each card in view registers its click region with the
+ * dashboard's InputDispatcher, so only the title and buttons are actors.
+ * The list scrolls with the arrow buttons or keys, and shares TaskPanel's
+ * virtualization through {@link SectionedCardList}.
  */
 public class SchoolPanel extends Actor {
+    private static final int LIST_TOP = 105;     // Top of the list area, below the Add button
+    private static final int CARD_LEFT = 25;     // Left edge of the cards
+    private static final int CARD_WIDTH = 450;   // Width of a card, shadow included
+    private static final int CARD_HEIGHT = 50;   // Height of a card, shadow included
+    private static final int ROW_SPACING = 55;   // Distance between cards, also one scroll step
+
     private User user;                           // The current user whose tasks are displayed
     private int width, height;                   // Panel dimensions
-    private ArrayList<SchoolTaskCard> cards = new ArrayList<>(); // Current task cards
+    private SectionedCardList<SchoolTask, SchoolTaskCard> list; // Pending and completed tasks, drawn into the panel image
     private ArrayList<Actor> panelElements = new ArrayList<>();  // All panel UI elements
     private ButtonActor addButton;               // Button to add new assignments
+    private ButtonActor upButton, downButton;    // Scroll buttons, shown only when needed
 
     /**
      * Constructor to create a SchoolPanel for a specific user.
@@ -25,6 +38,23 @@ public class SchoolPanel extends Actor {
         this.user = user;
         this.width = width;
         this.height = height;
+        list = new SectionedCardList<>(new SectionedCardList.Cards<SchoolTask, SchoolTaskCard>() {
+            public SchoolTaskCard create(SchoolTask task, boolean completed) {
+                return new SchoolTaskCard(task, SchoolPanel.this.user, SchoolPanel.this);
+            }
+
+            public void bind(SchoolTaskCard card, SchoolTask task, boolean completed) {
+                card.bind(task);
+            }
+
+            public SchoolTask rowOf(SchoolTaskCard card) {
+                return card.getTask();
+            }
+
+            public void addHitRegions(SchoolTaskCard card, InputDispatcher input, InputDispatcher.Region region) {
+                card.addHitRegions(input, region);
+            }
+        }, width, height, LIST_TOP, CARD_LEFT, CARD_WIDTH, CARD_HEIGHT, ROW_SPACING);
         drawPanel();
     }
 
@@ -33,8 +63,14 @@ public class SchoolPanel extends Actor {
      * Adds the title and "Add Task" button to the panel.
      */
     protected void addedToWorld(World world) {
+        // Back from the dashboard's page cache: the title, buttons and cards come back with it
+        if (!panelElements.isEmpty()) {
+            list.restore();
+            return;
+        }
+
         // Add title
-        TextLabel title = new TextLabel("School Tasks", 32, new greenfoot.Color(0, 0, 128), 250, 40, new greenfoot.Color(0, 0, 0, 0));
+        TextLabel title = new TextLabel("School Tasks", 32, Theme.current().accent, 250, 40, new greenfoot.Color(0, 0, 0, 0));
         world.addObject(title, getX(), getY() - (height / 2) + 30);
         panelElements.add(title);
 
@@ -46,6 +82,7 @@ public class SchoolPanel extends Actor {
                     String teacher = Greenfoot.ask("Enter teacher name:");
                     if (teacher != null && !teacher.trim().isEmpty()) {
                         user.getSchoolTasks().add(new SchoolTask(task.trim(), teacher.trim()));
+                        user.changed();
                         refreshTasks();
                     }
                 }
@@ -54,62 +91,39 @@ public class SchoolPanel extends Actor {
         world.addObject(addButton, getX(), getY() - (height / 2) + 80);
         panelElements.add(addButton);
 
+        // The list's click region; redraw registers the cards in view inside it
+        list.register(this);
+
+        // Scroll buttons (added to the world by refreshTasks when needed)
+        upButton = new ButtonActor("▲", 239, 232, 219, 0, 0, 128, 30, 30) {
+            public void onClick() {
+                if (list.getScroll().scrollBy(-1)) redraw();
+            }
+        };
+        downButton = new ButtonActor("▼", 239, 232, 219, 0, 0, 128, 30, 30) {
+            public void onClick() {
+                if (list.getScroll().scrollBy(1)) redraw();
+            }
+        };
+
         refreshTasks();
     }
 
     /**
-     * Draws the panel background with a beige gradient and navy border.
+     * Shows the theme's panel background (a gradient with a double border).
      */
     private void drawPanel() {
-        GreenfootImage img = new GreenfootImage(width, height);
-
-        // Gradient background
-        for (int i = 0; i < height; i++) {
-            int r = 239 - (i * 10 / height);
-            int g = 232 - (i * 10 / height);
-            int b = 219 - (i * 10 / height);
-            img.setColor(new greenfoot.Color(r, g, b));
-            img.drawLine(0, i, width, i);
-        }
-
-        // Navy border
-        img.setColor(new greenfoot.Color(0, 0, 128));
-        img.drawRect(0, 0, width - 1, height - 1);
-        img.drawRect(1, 1, width - 3, height - 3);
-
-        setImage(img);
+        setImage(Theme.current().panelBackground(width, height));
     }
 
     /**
-     * Refreshes the displayed tasks by clearing old cards and labels,
-     * and re-displaying pending and completed tasks in order.
+     * Refreshes the displayed tasks by laying out pending and completed tasks
+     * in order, which only computes where each row goes, and drawing the panel again.
      */
     public void refreshTasks() {
         World w = getWorld();
         if (w == null) return;
 
-        // Remove old cards
-        for (SchoolTaskCard c : cards) {
-            if (c.getWorld() != null) {
-                w.removeObject(c);
-                panelElements.remove(c);
-            }
-        }
-        cards.clear();
-
-        // Remove old labels (except title)
-        for (Actor a : new ArrayList<>(panelElements)) {
-            if (a instanceof TextLabel && a != panelElements.get(0)) {
-                if (a.getWorld() != null) {
-                    w.removeObject(a);
-                }
-                panelElements.remove(a);
-            }
-        }
-
-        int y = getY() - (height / 2) + 130;
-        int spacing = 55;
-
         ArrayList<SchoolTask> allTasks = user.getSchoolTasks();
         ArrayList<SchoolTask> pending = new ArrayList<>();
         ArrayList<SchoolTask> completed = new ArrayList<>();
@@ -119,47 +133,71 @@ public class SchoolPanel extends Actor {
             else pending.add(task);
         }
 
-        // Display pending tasks
-        if (!pending.isEmpty()) {
-            TextLabel pendingLabel = new TextLabel("To Do", 20, new greenfoot.Color(0, 0, 128), 150, 30, new greenfoot.Color(0, 0, 0, 0));
-            w.addObject(pendingLabel, getX() - 150, y);
-            panelElements.add(pendingLabel);
-            y += 40;
-            for (SchoolTask task : pending) {
-                SchoolTaskCard card = new SchoolTaskCard(task, user, this);
-                w.addObject(card, getX(), y);
-                cards.add(card);
-                panelElements.add(card);
-                y += spacing;
-            }
+        list.setRows(pending, completed);
+
+        // Scroll buttons only when the list doesn't fit
+        int buttonY = getY() - height / 2 + 80;
+        showIf(w, upButton, list.getScroll().isScrollable(), getX() + width / 2 - 65, buttonY);
+        showIf(w, downButton, list.getScroll().isScrollable(), getX() + width / 2 - 30, buttonY);
+
+        redraw();
+    }
+
+    /**
+     * Copies a card's new image into the panel image, leaving the rest of
+     * the panel as it is. Nothing is drawn if the card is out of view.
+     *
+     * @param card The card whose image changed
+     */
+    public void cardChanged(SchoolTaskCard card) {
+        list.cardChanged(card, 0, 0, CARD_WIDTH, CARD_HEIGHT, getImage());
+    }
+
+    /**
+     * Draws the headings and the cards in view into the panel image, or a
+     * message if there are no assignments.
+     */
+    public void redraw() {
+        long start = Profiler.start();
+        Theme theme = Theme.current();
+        GreenfootImage img = new GreenfootImage(theme.panelBackground(width, height));
+        list.draw(img, theme);
+
+        // Show empty message if no tasks
+        if (list.isEmpty()) {
+            img.setColor(theme.mutedText);
+            TextLayout.drawCentered(img, "No assignments yet. Click '+ New Assignment'!", Theme.MESSAGE_FONT, width / 2, height / 2 + 6);
         }
+        setImage(img);
+        Profiler.stop(this, "redraw", start);
+    }
 
-        // Display completed tasks
-        if (!completed.isEmpty()) {
-            y += 10;
-            TextLabel completedLabel = new TextLabel("Completed", 20, new greenfoot.Color(0, 150, 0), 150, 30, new greenfoot.Color(0, 0, 0, 0));
-            w.addObject(completedLabel, getX() - 150, y);
-            panelElements.add(completedLabel);
-            y += 40;
-            for (SchoolTask task : completed) {
-                SchoolTaskCard card = new SchoolTaskCard(task, user, this);
-                w.addObject(card, getX(), y);
-                cards.add(card);
-                panelElements.add(card);
-                y += spacing;
-            }
+    /**
+     * Scrolls with the arrow keys. Clicks on the cards arrive through the InputDispatcher.
+     */
+    public void act() {
+        long start = Profiler.start();
+        if (list.getScroll().pollArrowKeys()) {
+            redraw();
         }
+        Profiler.stop(this, "act", start);
+    }
 
-        // Show empty message if no tasks
-        if (pending.isEmpty() && completed.isEmpty()) {
-            TextLabel emptyMsg = new TextLabel("No assignments yet. Click '+ New Assignment'!", 18, new greenfoot.Color(100, 100, 100), 400, 30, new greenfoot.Color(0, 0, 0, 0));
-            w.addObject(emptyMsg, getX(), getY());
-            panelElements.add(emptyMsg);
+    /**
+     * Adds or removes a panel actor depending on a condition.
+     */
+    private void showIf(World world, Actor actor, boolean show, int x, int y) {
+        if (show && actor.getWorld() == null) {
+            world.addObject(actor, x, y);
+            panelElements.add(actor);
+        } else if (!show && actor.getWorld() != null) {
+            world.removeObject(actor);
+            panelElements.remove(actor);
         }
     }
 
     /**
-     * Removes all elements from the panel including task cards, labels, and buttons.
+     * Removes all elements from the panel including labels and buttons, and drops its tasks and cards.
      * Useful for cleanup when switching worlds or panels.
      */
     public void removeAllElements() {
@@ -172,6 +210,7 @@ public class SchoolPanel extends Actor {
             }
         }
         panelElements.clear();
-        cards.clear();
+        list.clear();
     }
 }
+
@@ -1,3 +1,5 @@
+import java.time.LocalDate;
+
 /**
  * Represents a school assignment with a name, associated teacher, and completion status.
  */
@@ -11,6 +13,9 @@ public class SchoolTask {
     /** Completion status of the assignment */
     private boolean completed;
 
+    /** Day the assignment was last completed, as days since 1970-01-01 (only meaningful while completed) */
+    private long completedDay;
+
     /**
      * Constructs a new SchoolTask with a given name and teacher.
      * The task is initially marked as incomplete.
@@ -39,8 +44,14 @@ public class SchoolTask {
         return completed;
     }
 
-    /** Sets the completion status of the task */
+    /** Sets the completion status of the task, remembering today as the completion day */
     public void setCompleted(boolean completed) {
+        if (completed && !this.completed) completedDay = LocalDate.now().toEpochDay();
         this.completed = completed;
     }
+
+    /** Returns the day the task was completed, as days since 1970-01-01 */
+    public long getCompletedDay() {
+        return completedDay;
+    }
 }
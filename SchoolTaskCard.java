@@ -1,9 +1,17 @@
 import greenfoot.*;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
 /**
  * SchoolTaskCard represents a visual card for a single school assignment
  * within a {@link SchoolPanel}. It displays the task name, teacher,
  * and completion status. Clicking the card toggles its completion.
+ * The panel draws the card's image into its own and the card registers its
+ * click region with the InputDispatcher; the card is never added to the world.
+ * The card remembers what its image shows, so {@link #update} only redraws
+ * it when the task changed. SchoolPanel recycles cards as the list scrolls
+ * by binding them to other tasks. The card is drawn on the RenderPool and
+ * shows its plain background until the finished image arrives.
  */
 public class SchoolTaskCard extends Actor {
 
@@ -16,6 +24,13 @@ public class SchoolTaskCard extends Actor {
     /** The parent panel displaying this card */
     private SchoolPanel parentPanel;
 
+    /** Name, teacher and completion state the image shows */
+    private String drawnName, drawnTeacher;
+    private boolean drawnCompleted;
+
+    /** Render jobs submitted; only the newest one's image is used */
+    private int renders;
+
     /**
      * Constructs a SchoolTaskCard for the given task.
      *
@@ -31,79 +46,136 @@ public class SchoolTaskCard extends Actor {
     }
 
     /**
-     * Draws the visual representation of the task card, including:
-     * - Background and shadow
-     * - Navy border
-     * - Checkbox (with checkmark if completed)
-     * - Task name and teacher
-     * Completed tasks appear greyed out.
+     * Returns the task shown by this card.
+     *
+     * @return The SchoolTask
      */
-    private void updateImage() {
-        GreenfootImage img = new GreenfootImage(450, 50);
-
-        // Background color based on completion
-        if (task.isCompleted()) {
-            img.setColor(new greenfoot.Color(220, 215, 200));
-        } else {
-            img.setColor(new greenfoot.Color(250, 245, 235));
-        }
-        img.fill();
+    public SchoolTask getTask() {
+        return task;
+    }
 
-        // Shadow effect
-        img.setColor(new greenfoot.Color(200, 190, 170));
-        img.fillRect(2, 2, 446, 46);
+    /**
+     * Binds this card to a task, possibly another one, so SchoolPanel can
+     * recycle it, and redraws it if needed.
+     *
+     * @param task The SchoolTask to display
+     * @return true if the image changed
+     */
+    public boolean bind(SchoolTask task) {
+        this.task = task;
+        return update();
+    }
 
-        // Main card
-        if (task.isCompleted()) {
-            img.setColor(new greenfoot.Color(230, 225, 210));
-        } else {
-            img.setColor(new greenfoot.Color(255, 250, 240));
+    /**
+     * Redraws the card if its task changed since it was drawn.
+     *
+     * @return true if the image changed
+     */
+    public boolean update() {
+        if (task.isCompleted() == drawnCompleted && task.getTaskName().equals(drawnName)
+                && task.getTeacher().equals(drawnTeacher)) {
+            return false;
         }
-        img.fillRect(0, 0, 446, 46);
+        updateImage();
+        return true;
+    }
 
-        // Navy border
-        img.setColor(new greenfoot.Color(0, 0, 128));
-        img.drawRect(0, 0, 445, 45);
+    /**
+     * Shows the theme's card background (shadow, border and checkbox) at
+     * once and has the RenderPool draw the full card from a copy of the
+     * task's current state.
+     */
+    private void updateImage() {
+        long start = Profiler.start();
+        final Theme theme = Theme.current();
+        final GreenfootImage background = theme.cardBackground(450, 50, 15, task.isCompleted());
+        final String name = task.getTaskName();
+        final String teacher = task.getTeacher();
+        final boolean completed = task.isCompleted();
+
+        setImage(new GreenfootImage(background));
+        drawnName = name;
+        drawnTeacher = teacher;
+        drawnCompleted = completed;
+
+        final int render = ++renders;
+        RenderPool.submit(new RenderPool.Job() {
+            public BufferedImage render() {
+                return draw(background, theme, name, teacher, completed);
+            }
+        }, new RenderPool.Target() {
+            public void rendered(GreenfootImage image) {
+                if (render != renders) return; // Overtaken by a newer redraw
+                setImage(image);
+                if (parentPanel != null) parentPanel.cardChanged(SchoolTaskCard.this);
+            }
+        });
+        Profiler.stop(this, "updateImage", start);
+    }
 
-        // Checkbox
-        img.setColor(new greenfoot.Color(0, 0, 128));
-        img.drawRect(10, 15, 18, 18);
-        if (task.isCompleted()) {
-            img.drawString("✓", 13, 30);
+    /**
+     * Draws the visual representation of the task card on a copy of the
+     * background, including:
+     * - Checkmark if completed
+     * - Task name and teacher
+     * Completed tasks appear greyed out. Runs on the RenderPool.
+     */
+    private static BufferedImage draw(GreenfootImage background, Theme theme, String name, String teacher, boolean completed) {
+        BufferedImage img = RenderPool.copy(background);
+        Graphics2D g = RenderPool.graphics(img);
+
+        // Check mark
+        g.setFont(TextLayout.toAwtFont(Theme.CARD_FONT));
+        g.setColor(RenderPool.toAwtColor(theme.accent));
+        if (completed) {
+            g.drawString("✓", 13, 30);
         }
 
         // Task name
-        img.setFont(new Font("Arial", false, false, 16));
-        img.setColor(task.isCompleted() ? new greenfoot.Color(100, 100, 100)
-                                        : new greenfoot.Color(0, 0, 0));
-        img.drawString(task.getTaskName(), 40, 24);
+        g.setColor(RenderPool.toAwtColor(completed ? theme.doneText : theme.text));
+        g.drawString(name, 40, 24);
 
         // Teacher name (smaller, italics)
-        img.setFont(new Font("Arial", false, true, 13));
-        img.setColor(new greenfoot.Color(100, 100, 150));
-        img.drawString("Teacher: " + task.getTeacher(), 40, 40);
+        g.setFont(TextLayout.toAwtFont(Theme.DETAIL_FONT));
+        g.setColor(RenderPool.toAwtColor(theme.detailText));
+        g.drawString("Teacher: " + teacher, 40, 40);
 
-        setImage(img);
+        g.dispose();
+        return img;
     }
 
     /**
-     * Called by Greenfoot on each act cycle.
-     * Detects clicks on the card and toggles task completion.
-     * Updates the parent panel and plays sounds accordingly.
+     * Makes the whole card clickable by registering a handler on the region
+     * the SchoolPanel gave the card.
+     *
+     * @param input The dashboard's InputDispatcher
+     * @param card  The region covering this card on screen
      */
-    public void act() {
-        if (Greenfoot.mouseClicked(this)) {
-            task.setCompleted(!task.isCompleted());
-
-            if (task.isCompleted()) {
-                playSound("success.wav");
-            } else {
-                playSound("click.wav");
+    public void addHitRegions(InputDispatcher input, InputDispatcher.Region card) {
+        input.add(card, 0, 0, 450, 50, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                toggleCompletion();
             }
+        });
+    }
 
-            if (parentPanel != null) {
-                parentPanel.refreshTasks();
-            }
+    /**
+     * Toggles task completion, updates the parent panel and plays sounds accordingly.
+     */
+    private void toggleCompletion() {
+        if (task.isCompleted()) user.getActivity().record(ActivityCounters.ASSIGNMENTS, task.getCompletedDay(), -1);
+        task.setCompleted(!task.isCompleted());
+        if (task.isCompleted()) user.getActivity().record(ActivityCounters.ASSIGNMENTS, task.getCompletedDay(), 1);
+        user.changed();
+
+        if (task.isCompleted()) {
+            playSound("success.wav");
+        } else {
+            playSound("click.wav");
+        }
+
+        if (parentPanel != null) {
+            parentPanel.refreshTasks();
         }
     }
 
@@ -0,0 +1,117 @@
+import greenfoot.*;
+
+/**
+ * ScrollModel tracks which slice of a long list is currently visible.
+ * It holds no actors itself; panels use it to decide which rows to bind
+ * to their pooled widgets when the user scrolls.
+ */
+public class ScrollModel {
+    private int visible;   // Number of rows that fit in the viewport
+    private int total;     // Total number of rows in the list
+    private int first;     // Index of the first visible row
+    private boolean upHeld, downHeld; // Arrow key state from the previous frame
+
+    /**
+     * Constructs a ScrollModel for a viewport of the given size.
+     *
+     * @param visible Number of rows that fit in the viewport
+     */
+    public ScrollModel(int visible) {
+        this.visible = Math.max(1, visible);
+    }
+
+    /**
+     * Sets the total number of rows, keeping the scroll position in range.
+     *
+     * @param total Total number of rows in the list
+     */
+    public void setTotal(int total) {
+        this.total = Math.max(0, total);
+        clamp();
+    }
+
+    /**
+     * Scrolls by the given number of rows (negative scrolls up).
+     *
+     * @param delta Rows to scroll
+     * @return true if the visible window moved
+     */
+    public boolean scrollBy(int delta) {
+        return scrollTo(first + delta);
+    }
+
+    /**
+     * Scrolls so the given row is the first visible one, as far as possible.
+     *
+     * @param row Row index to scroll to
+     * @return true if the visible window moved
+     */
+    public boolean scrollTo(int row) {
+        int old = first;
+        first = row;
+        clamp();
+        return first != old;
+    }
+
+    /** Returns the index of the first visible row */
+    public int getFirst() {
+        return first;
+    }
+
+    /** Returns the index one past the last visible row */
+    public int getEnd() {
+        return Math.min(first + visible, total);
+    }
+
+    /** Returns the number of rows that fit in the viewport */
+    public int getVisible() {
+        return visible;
+    }
+
+    /** Returns the total number of rows */
+    public int getTotal() {
+        return total;
+    }
+
+    /** Returns true if the list is longer than the viewport */
+    public boolean isScrollable() {
+        return total > visible;
+    }
+
+    /** Returns true if there are rows above the viewport */
+    public boolean canScrollUp() {
+        return first > 0;
+    }
+
+    /** Returns true if there are rows below the viewport */
+    public boolean canScrollDown() {
+        return first + visible < total;
+    }
+
+    /**
+     * Scrolls one row per press of the up/down arrow keys.
+     * Greenfoot has no mouse-wheel events, so the arrow keys and the
+     * panel's scroll buttons are the ways to move through a long list.
+     *
+     * @return true if the visible window moved
+     */
+    public boolean pollArrowKeys() {
+        boolean up = Greenfoot.isKeyDown("up");
+        boolean down = Greenfoot.isKeyDown("down");
+        int delta = 0;
+        if (up && !upHeld) delta--;
+        if (down && !downHeld) delta++;
+        upHeld = up;
+        downHeld = down;
+        return delta != 0 && scrollBy(delta);
+    }
+
+    /**
+     * Keeps the first visible row within [0, total - visible].
+     */
+    private void clamp() {
+        int max = Math.max(0, total - visible);
+        if (first > max) first = max;
+        if (first < 0) first = 0;
+    }
+}
@@ -0,0 +1,345 @@
+import greenfoot.*;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * SectionedCardList is the scrolling list of cards shared by TaskPanel and
+ * SchoolPanel: a "To Do" section and a "Completed" section, each under a
+ * heading, drawn into the panel's own image.
+ *
+ * The list is virtualized: the layout is just the top of each row, and
+ * cards exist only for the rows in view. As the list scrolls, cards whose
+ * row is still in view are kept and the others are bound to the rows that
+ * came into view, so a card is only redrawn when what it shows changed.
+ * The heading of the section at the top of the view stays pinned there
+ * until the next heading pushes it away. Each card in view registers its
+ * click regions with the dashboard's InputDispatcher, clipped to the list
+ * below the pinned heading.
+ *
+ * The panel supplies its card sizes and a {@link Cards} adapter that
+ * creates and binds its kind of card; everything else lives here.
+ *
+ * @param <T> The data shown by one row, e.g. a task
+ * @param <C> The card actor that draws a row
+ */
+public class SectionedCardList<T, C extends Actor> {
+
+    private static final int HEADING_HEIGHT = 40; // Height of a section heading
+    private static final int SECTION_GAP = 10;    // Extra space before "Completed"
+
+    /**
+     * Creates and binds the cards of one kind of panel.
+     *
+     * @param <T> The data shown by one row
+     * @param <C> The card actor
+     */
+    public interface Cards<T, C extends Actor> {
+        /** Returns a new card showing a row */
+        C create(T row, boolean completed);
+
+        /** Shows a row on a card, redrawing the card only if that changes it */
+        void bind(C card, T row, boolean completed);
+
+        /** Returns the row a card shows */
+        T rowOf(C card);
+
+        /** Registers a card's click regions inside the region covering it */
+        void addHitRegions(C card, InputDispatcher input, InputDispatcher.Region region);
+    }
+
+    private final Cards<T, C> cards;             // Creates and binds the panel's cards
+    private final int width, height;             // Size of the panel
+    private final int listTop;                   // Top of the list area within the panel
+    private final int cardLeft;                  // Left edge of the cards within the panel
+    private final int cardWidth, cardHeight;     // Size of a card, shadow included
+    private final int rowSpacing;                // Distance between cards, also one scroll step
+    private final ScrollModel scroll;            // Which part of the list is visible, in rows
+    private ArrayList<T> rows = new ArrayList<>();             // To Do then Completed rows, in display order
+    private int todoCount;                       // Number of To Do rows at the start of rows
+    private int[] cardTops = new int[0];         // Top of each row's card within the list
+    private ArrayList<C> shown = new ArrayList<>();            // Cards bound to the rows in view
+    private int firstShown;                      // Row of the first card in shown
+    private ArrayList<C> spare = new ArrayList<>();            // Cards not bound to any row
+    private int stickyBottom;                    // Bottom of the pinned heading within the list, 0 if none
+    private int todoHeadingTop = -1;             // Top of the "To Do" heading, or -1 if not shown
+    private int doneHeadingTop = -1;             // Top of the "Completed" heading, or -1 if not shown
+    private InputDispatcher input;               // The dashboard's dispatcher, or null
+    private InputDispatcher.Region listRegion;   // Click region of the list; the cards in view are inside it
+
+    /**
+     * Creates an empty list.
+     *
+     * @param cards      Creates and binds the panel's cards
+     * @param width      Width of the panel
+     * @param height     Height of the panel
+     * @param listTop    Top of the list area within the panel
+     * @param cardLeft   Left edge of the cards within the panel
+     * @param cardWidth  Width of a card, shadow included
+     * @param cardHeight Height of a card, shadow included
+     * @param rowSpacing Distance between cards, also one scroll step
+     */
+    public SectionedCardList(Cards<T, C> cards, int width, int height, int listTop,
+                             int cardLeft, int cardWidth, int cardHeight, int rowSpacing) {
+        this.cards = cards;
+        this.width = width;
+        this.height = height;
+        this.listTop = listTop;
+        this.cardLeft = cardLeft;
+        this.cardWidth = cardWidth;
+        this.cardHeight = cardHeight;
+        this.rowSpacing = rowSpacing;
+        scroll = new ScrollModel(listHeight() / rowSpacing);
+    }
+
+    /**
+     * Returns the list's scroll position, for the panel's scroll buttons and arrow keys.
+     *
+     * @return The scroll model
+     */
+    public ScrollModel getScroll() {
+        return scroll;
+    }
+
+    /**
+     * Returns true if the list has no rows.
+     *
+     * @return Whether both sections are empty
+     */
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * Registers the list area as a click region owned by the panel, if the
+     * world has an InputDispatcher. {@link #draw} registers the cards in view inside it.
+     *
+     * @param panel The panel, already in the world
+     */
+    public void register(Actor panel) {
+        input = InputDispatcher.of(panel.getWorld());
+        if (input != null) {
+            listRegion = input.add(panel, panel.getX() - width / 2, panel.getY() - height / 2 + listTop,
+                                   width, listHeight(), null);
+        }
+    }
+
+    /**
+     * Puts the list's click regions back after the panel returns from the dashboard's page cache.
+     */
+    public void restore() {
+        if (listRegion != null) input.restore(listRegion);
+    }
+
+    /**
+     * Lays out the two sections, which only computes where each row goes.
+     * Call {@link #draw} afterwards.
+     *
+     * @param todo Rows of the "To Do" section
+     * @param done Rows of the "Completed" section
+     */
+    public void setRows(List<T> todo, List<T> done) {
+        rows.clear();
+        rows.addAll(todo);
+        rows.addAll(done);
+        todoCount = todo.size();
+        cardTops = new int[rows.size()];
+        todoHeadingTop = -1;
+        doneHeadingTop = -1;
+        int y = 0;
+
+        if (!todo.isEmpty()) {
+            todoHeadingTop = y;
+            y += HEADING_HEIGHT;
+            for (int i = 0; i < todoCount; i++) {
+                cardTops[i] = y;
+                y += rowSpacing;
+            }
+        }
+
+        if (!done.isEmpty()) {
+            if (!todo.isEmpty()) y += SECTION_GAP;
+            doneHeadingTop = y;
+            y += HEADING_HEIGHT;
+            for (int i = todoCount; i < rows.size(); i++) {
+                cardTops[i] = y;
+                y += rowSpacing;
+            }
+        }
+
+        scroll.setTotal((y + rowSpacing - 1) / rowSpacing);
+    }
+
+    /**
+     * Draws the headings and the cards in view into the panel image and
+     * registers the cards' click regions. The list is drawn into its own
+     * image first so that cards cut by the scroll position are clipped to
+     * it. An empty list only unbinds its cards and regions, leaving the
+     * panel to draw its own message.
+     *
+     * @param img   The panel image, showing the panel background
+     * @param theme The theme to draw the headings in
+     */
+    public void draw(GreenfootImage img, Theme theme) {
+        if (listRegion != null) input.removeChildren(listRegion);
+        if (rows.isEmpty()) {
+            bindRows(0, 0);
+            stickyBottom = 0;
+            return;
+        }
+
+        GreenfootImage list = new GreenfootImage(width - 8, listHeight());
+        int offset = scroll.getFirst() * rowSpacing;
+        drawHeading(list, "To Do", theme.accent, todoHeadingTop, offset);
+        drawHeading(list, "Completed", Theme.DONE_HEADING, doneHeadingTop, offset);
+
+        // Cards of the rows that overlap the list area
+        int first = firstRowBelow(offset);
+        int end = first;
+        while (end < rows.size() && cardTops[end] - offset < list.getHeight()) end++;
+        bindRows(first, end);
+        for (int i = 0; i < shown.size(); i++) {
+            list.drawImage(shown.get(i).getImage(), cardLeft - 4, cardTops[first + i] - offset);
+        }
+
+        stickyBottom = drawStickyHeading(list, theme, offset);
+        img.drawImage(list, 4, listTop);
+
+        // Click regions of the cards, below the pinned heading
+        if (listRegion != null) {
+            InputDispatcher.Region cardsRegion = input.add(listRegion, 0, stickyBottom, width, listHeight() - stickyBottom, null);
+            for (int i = 0; i < shown.size(); i++) {
+                int top = cardTops[first + i] - offset - stickyBottom;
+                cards.addHitRegions(shown.get(i), input, input.add(cardsRegion, cardLeft, top, cardWidth, cardHeight, null));
+            }
+        }
+    }
+
+    /**
+     * Copies a changed part of a card into the panel image, leaving the rest
+     * of the panel as it is. Nothing is drawn if the card is out of view.
+     *
+     * @param card   The card that changed
+     * @param x      Left edge of the changed part, relative to the card
+     * @param y      Top edge of the changed part, relative to the card
+     * @param width  Width of the changed part
+     * @param height Height of the changed part
+     * @param img    The panel image
+     */
+    public void cardChanged(C card, int x, int y, int width, int height, GreenfootImage img) {
+        int i = shown.indexOf(card);
+        if (i < 0) return;
+
+        // The changed part in panel coordinates, clipped to the list area below the pinned heading
+        int cardTop = listTop + cardTops[firstShown + i] - scroll.getFirst() * rowSpacing;
+        int top = Math.max(cardTop + y, listTop + stickyBottom);
+        int bottom = Math.min(cardTop + y + height, listTop + listHeight());
+        if (bottom <= top) return;
+
+        GreenfootImage patch = new GreenfootImage(width, bottom - top);
+        patch.drawImage(card.getImage(), -x, cardTop - top);
+        img.drawImage(patch, cardLeft + x, top);
+    }
+
+    /**
+     * Drops the rows and cards, e.g. when the panel is removed for good.
+     */
+    public void clear() {
+        rows.clear();
+        cardTops = new int[0];
+        shown.clear();
+        spare.clear();
+    }
+
+    /**
+     * Returns the first row whose card reaches below the given position in
+     * the list, found by binary search since rows are laid out in order.
+     */
+    private int firstRowBelow(int offset) {
+        int low = 0, high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cardTops[mid] + cardHeight > offset) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+
+    /**
+     * Binds cards to rows first to end - 1. A card whose row is still in
+     * view keeps it; the other cards are rebound to the rows that came into
+     * view, and cards are only created when the pool runs out.
+     */
+    private void bindRows(int first, int end) {
+        IdentityHashMap<T, C> previous = new IdentityHashMap<>();
+        for (C card : shown) {
+            previous.put(cards.rowOf(card), card);
+        }
+
+        // Keep the cards of rows still in view, leaving gaps for the others
+        shown.clear();
+        for (int row = first; row < end; row++) {
+            shown.add(previous.remove(rows.get(row)));
+        }
+        spare.addAll(previous.values());
+
+        // Fill the gaps with spare cards
+        for (int i = 0; i < shown.size(); i++) {
+            int row = first + i;
+            boolean completed = row >= todoCount;
+            C card = shown.get(i);
+            if (card == null) {
+                card = spare.isEmpty() ? cards.create(rows.get(row), completed) : spare.remove(spare.size() - 1);
+                shown.set(i, card);
+            }
+            cards.bind(card, rows.get(row), completed);
+        }
+        firstShown = first;
+    }
+
+    /**
+     * Draws a section heading into the list image, if the section is shown.
+     */
+    private void drawHeading(GreenfootImage list, String text, greenfoot.Color color, int top, int offset) {
+        if (top < 0) return;
+        list.setColor(color);
+        TextLayout.drawCentered(list, text, Theme.HEADING_FONT, 96, top - offset + 27);
+    }
+
+    /**
+     * Pins the heading of the section scrolled past to the top of the list,
+     * on a strip of the panel background that hides the cards under it. The
+     * "Completed" heading pushes a pinned "To Do" heading up as it arrives.
+     *
+     * @return The bottom of the pinned heading, or 0 if none is pinned
+     */
+    private int drawStickyHeading(GreenfootImage list, Theme theme, int offset) {
+        int top = 0;
+        String text;
+        greenfoot.Color color;
+        if (doneHeadingTop >= 0 && doneHeadingTop < offset) {
+            text = "Completed";
+            color = Theme.DONE_HEADING;
+        } else if (todoHeadingTop >= 0 && todoHeadingTop < offset) {
+            text = "To Do";
+            color = theme.accent;
+            if (doneHeadingTop >= 0) top = Math.min(0, doneHeadingTop - offset - HEADING_HEIGHT);
+        } else {
+            return 0;
+        }
+
+        GreenfootImage strip = new GreenfootImage(list.getWidth(), HEADING_HEIGHT);
+        strip.drawImage(theme.panelBackground(width, height), -4, -(listTop + top));
+        strip.setColor(color);
+        TextLayout.drawCentered(strip, text, Theme.HEADING_FONT, 96, 27);
+        list.drawImage(strip, 0, top);
+        return Math.max(0, top + HEADING_HEIGHT);
+    }
+
+    /**
+     * Returns the height of the list area, from its top to the panel's bottom border.
+     */
+    private int listHeight() {
+        return height - listTop - 8;
+    }
+}
@@ -10,6 +10,7 @@ public abstract class SidebarButton extends Actor {
 
     /** The text displayed on the button */
     private String text;
+    private InputDispatcher.Region clickRegion; // Set while an InputDispatcher delivers the clicks
 
     /**
      * Constructs a SidebarButton with the specified label text.
@@ -22,31 +23,50 @@ public abstract class SidebarButton extends Actor {
     }
 
     /**
-     * Draws the visual representation of the button.
-     * Background is navy, text is white.
+     * Draws the visual representation of the button, or reuses it from
+     * {@link ImageCache}. Background is navy, text is white.
      */
     private void updateImage() {
-        GreenfootImage img = new GreenfootImage(160, 50);
+        long start = Profiler.start();
+        setImage(ImageCache.get(ImageCache.key("SidebarButton", text), new ImageCache.Renderer() {
+            public GreenfootImage render() {
+                GreenfootImage img = new GreenfootImage(160, 50);
 
-        // Background color: Navy
-        img.setColor(new Color(0, 0, 128));
-        img.fill();
+                // Background color: Navy
+                img.setColor(new Color(0, 0, 128));
+                img.fill();
 
-        // Text color: White
-        img.setColor(Color.WHITE);
-        img.drawString(text, 10, 30);
+                // Text color: White
+                img.setColor(Color.WHITE);
+                img.drawString(text, 10, 30);
+                return img;
+            }
+        }));
+        Profiler.stop(this, "updateImage", start);
+    }
 
-        setImage(img);
+    /**
+     * Registers the button with the world's InputDispatcher, if it has one.
+     */
+    protected void addedToWorld(World world) {
+        clickRegion = InputDispatcher.attach(this, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                onClick();
+            }
+        });
     }
 
     /**
      * Act method called by Greenfoot on each frame.
-     * Detects mouse clicks on this button and triggers the onClick behavior.
+     * Detects mouse clicks on this button and triggers the onClick behavior,
+     * unless an InputDispatcher delivers the clicks.
      */
     public void act() {
-        if (Greenfoot.mouseClicked(this)) {
+        long start = Profiler.start();
+        if (clickRegion == null && Greenfoot.mouseClicked(this)) {
             onClick();
         }
+        Profiler.stop(this, "act", start);
     }
 
     /**
@@ -1,4 +1,6 @@
 import greenfoot.*;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.Arrays;
 import java.util.List;
 
@@ -6,14 +8,39 @@ import java.util.List;
  * TaskCard represents a visual task item in the TaskPanel.
  * It displays the task's name, completion status, and urgency level.
  * Users can toggle completion and update urgency through the card UI.
+ * The card is never added to the world: its panel draws the card's image,
+ * and the card's click regions are registered with the InputDispatcher.
+ *
+ * The card remembers what its image shows. {@link #update} redraws nothing
+ * if the task is unchanged, and only the badge if just the urgency changed.
+ * TaskPanel recycles cards as the list scrolls by binding them to other tasks.
+ *
+ * A full redraw happens on the RenderPool: the card shows its plain
+ * background until the finished image arrives, then has the panel patch it in.
  */
 public class TaskCard extends Actor {
     private TaskData task;             // The underlying task data
     private boolean completed;          // Whether the task is marked complete
     private User user;                  // User who owns the task
     private TaskPanel parentPanel;      // Parent panel for refreshing display
+    private String drawnName;           // Task name the image shows
+    private boolean drawnCompleted;     // Completion state the image shows
+    private int drawnUrgency = -1;      // Urgency level the badge shows
+    private int renders;                // Render jobs submitted; only the newest one's image is used
+    private boolean rendering;          // Whether the image is still the placeholder
 
-    private List<String> urgencyLevels = Arrays.asList("Low", "Normal", "High", "Critical");
+    private static final List<String> urgencyLevels = Arrays.asList("Low", "Normal", "High", "Critical");
+
+    /** Badge colors for Low, Normal, High and Critical urgency */
+    private static final greenfoot.Color[] BADGE_COLORS = {
+        new greenfoot.Color(200, 230, 200),
+        new greenfoot.Color(200, 200, 255),
+        new greenfoot.Color(255, 200, 100),
+        new greenfoot.Color(255, 150, 150)
+    };
+    private static final greenfoot.Color BADGE_BORDER = new greenfoot.Color(80, 80, 80);
+    private static final greenfoot.Color BADGE_TEXT = new greenfoot.Color(40, 40, 40);
+    private static final int BADGE_X = 40, BADGE_Y = 32, BADGE_W = 110, BADGE_H = 22; // Badge outline
 
     /**
      * Constructs a TaskCard for a given task.
@@ -31,110 +58,171 @@ public class TaskCard extends Actor {
         updateImage();
     }
 
+    /**
+     * Returns the task shown by this card.
+     *
+     * @return The TaskData object.
+     */
+    public TaskData getTask() {
+        return task;
+    }
+
+    /**
+     * Binds this card to a task, possibly another one, so TaskPanel can
+     * recycle it, and redraws what changed.
+     *
+     * @param task      The TaskData object.
+     * @param completed Whether the task is completed.
+     * @return true if the image changed.
+     */
+    public boolean bind(TaskData task, boolean completed) {
+        this.task = task;
+        this.completed = completed;
+        return update();
+    }
+
+    /**
+     * Redraws the parts of the card whose data changed since they were drawn:
+     * the whole card if the name or completion changed, otherwise just the
+     * urgency badge if the urgency changed. While a full redraw is still on
+     * the RenderPool, an urgency change starts another one instead.
+     *
+     * @return true if the image changed.
+     */
+    public boolean update() {
+        boolean badgeChanged = task.getUrgencyLevel() != drawnUrgency;
+        if (completed != drawnCompleted || !task.getTaskName().equals(drawnName) || (badgeChanged && rendering)) {
+            updateImage();
+            return true;
+        }
+        if (badgeChanged) {
+            Graphics2D g = RenderPool.graphics(getImage().getAwtImage());
+            drawUrgencyBadge(g, task.getUrgencyLevel());
+            g.dispose();
+            drawnUrgency = task.getUrgencyLevel();
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Updates the visual representation of the task card.
-     * Shows background, shadow, border, checkbox, task name, and urgency badge.
+     * Shows the theme's card background (shadow, border and checkbox) at
+     * once and has the RenderPool draw the full card from a copy of the
+     * task's current state.
      */
     private void updateImage() {
-        GreenfootImage img = new GreenfootImage(450, 60);
+        long start = Profiler.start();
+        final Theme theme = Theme.current();
+        final GreenfootImage background = theme.cardBackground(450, 60, 12, completed);
+        final String name = task.getTaskName();
+        final boolean done = completed;
+        final int urgency = task.getUrgencyLevel();
 
-        // Background
-        img.setColor(completed ? new greenfoot.Color(220, 215, 200) : new greenfoot.Color(250, 245, 235));
-        img.fill();
+        setImage(new GreenfootImage(background));
+        drawnName = name;
+        drawnCompleted = done;
+        drawnUrgency = urgency;
+        rendering = true;
 
-        // Shadow
-        img.setColor(new greenfoot.Color(200, 190, 170));
-        img.fillRect(2, 2, 446, 56);
-
-        // Main card
-        img.setColor(completed ? new greenfoot.Color(230, 225, 210) : new greenfoot.Color(255, 250, 240));
-        img.fillRect(0, 0, 446, 56);
+        final int render = ++renders;
+        RenderPool.submit(new RenderPool.Job() {
+            public BufferedImage render() {
+                return draw(background, theme, name, done, urgency);
+            }
+        }, new RenderPool.Target() {
+            public void rendered(GreenfootImage image) {
+                if (render != renders) return; // Overtaken by a newer redraw
+                setImage(image);
+                rendering = false;
+                if (parentPanel != null) parentPanel.cardChanged(TaskCard.this, 0, 0, 450, 60);
+            }
+        });
+        Profiler.stop(this, "updateImage", start);
+    }
 
-        // Border
-        img.setColor(new greenfoot.Color(0, 0, 128));
-        img.drawRect(0, 0, 445, 55);
+    /**
+     * Draws a card: the check mark, task name and urgency badge on a copy of
+     * the background. Runs on the RenderPool.
+     */
+    private static BufferedImage draw(GreenfootImage background, Theme theme, String name, boolean completed, int urgency) {
+        BufferedImage img = RenderPool.copy(background);
+        Graphics2D g = RenderPool.graphics(img);
 
-        // Checkbox
-        img.setColor(new greenfoot.Color(0, 0, 128));
-        img.drawRect(10, 12, 18, 18);
-        if (completed) img.drawString("✓", 13, 27);
+        // Check mark
+        g.setFont(TextLayout.toAwtFont(Theme.CARD_FONT));
+        g.setColor(RenderPool.toAwtColor(theme.accent));
+        if (completed) g.drawString("✓", 13, 27);
 
         // Task name
-        img.setFont(new Font("Arial", false, false, 16));
-        img.setColor(completed ? new greenfoot.Color(100, 100, 100) : new greenfoot.Color(0, 0, 0));
-        img.drawString(task.getTaskName(), 40, 25);
+        g.setColor(RenderPool.toAwtColor(completed ? theme.doneText : theme.text));
+        g.drawString(TextLayout.ellipsize(name, Theme.CARD_FONT, 395), 40, 25);
 
-        drawUrgencyBadge(img);
-
-        setImage(img);
+        drawUrgencyBadge(g, urgency);
+        g.dispose();
+        return img;
     }
 
     /**
-     * Draws the urgency badge on the card.
+     * Draws the urgency badge on the card. The badge is opaque, so it can be
+     * drawn over an older badge without redrawing the rest of the card.
      *
-     * @param img The GreenfootImage to draw on.
+     * @param g       Graphics of the card image.
+     * @param urgency The urgency level to show.
      */
-    private void drawUrgencyBadge(GreenfootImage img) {
-        String urgency = urgencyLevels.get(task.getUrgencyLevel());
-        int x = 40, y = 32, w = 110, h = 22;
-
-        // Determine badge color based on urgency
-        greenfoot.Color badgeColor;
-        switch(task.getUrgencyLevel()) {
-            case 0: badgeColor = new greenfoot.Color(200, 230, 200); break;  // Low
-            case 1: badgeColor = new greenfoot.Color(200, 200, 255); break;  // Normal
-            case 2: badgeColor = new greenfoot.Color(255, 200, 100); break;  // High
-            case 3: badgeColor = new greenfoot.Color(255, 150, 150); break;  // Critical
-            default: badgeColor = new greenfoot.Color(200, 200, 200);
-        }
+    private static void drawUrgencyBadge(Graphics2D g, int urgency) {
+        int x = BADGE_X, y = BADGE_Y, w = BADGE_W, h = BADGE_H;
 
-        img.setColor(badgeColor);
-        img.fillRect(x, y, w, h);
+        // Badge color based on urgency
+        g.setColor(RenderPool.toAwtColor(BADGE_COLORS[urgency]));
+        g.fillRect(x, y, w, h);
 
         // Border
-        img.setColor(new greenfoot.Color(80, 80, 80));
-        img.drawRect(x, y, w, h);
+        g.setColor(RenderPool.toAwtColor(BADGE_BORDER));
+        g.drawRect(x, y, w, h);
 
         // Text
-        img.setFont(new Font("Arial", false, false, 13));
-        img.setColor(new greenfoot.Color(40, 40, 40));
-        img.drawString("⚡ " + urgency, x + 5, y + 16);
+        g.setFont(TextLayout.toAwtFont(Theme.BADGE_FONT));
+        g.setColor(RenderPool.toAwtColor(BADGE_TEXT));
+        g.drawString("⚡ " + urgencyLevels.get(urgency), x + 5, y + 16);
 
         // Dropdown indicator
-        img.drawString("▼", x + w - 15, y + 16);
+        g.drawString("▼", x + w - 15, y + 16);
     }
 
     /**
-     * Handles user interaction with the card.
-     * Click on the checkbox toggles completion, click on the urgency badge opens the urgency menu.
+     * Registers the card's checkbox and urgency badge as sub-regions of the
+     * region the TaskPanel gave the card. Clicking the checkbox toggles
+     * completion, clicking the badge opens the urgency menu.
+     *
+     * @param input The dashboard's InputDispatcher.
+     * @param card  The region covering this card on screen.
      */
-    public void act() {
-        if (Greenfoot.mouseClicked(this)) {
-            MouseInfo mouse = Greenfoot.getMouseInfo();
-            if (mouse != null) {
-                int cardLeft = getX() - 225;
-                int cardTop = getY() - 30;
-                int relX = mouse.getX() - cardLeft;
-                int relY = mouse.getY() - cardTop;
-
-                // Click on urgency badge
-                if (relX >= 40 && relX <= 150 && relY >= 32 && relY <= 54) {
-                    showUrgencyOptions();
-                    playSound("click.wav");
-                }
-                // Click on checkbox
-                else if (relX >= 10 && relX <= 28 && relY >= 12 && relY <= 30) {
-                    toggleCompletion();
-                }
+    public void addHitRegions(InputDispatcher input, final InputDispatcher.Region card) {
+        // Checkbox
+        input.add(card, 10, 12, 19, 19, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                toggleCompletion();
             }
-        }
+        });
+
+        // Urgency badge
+        input.add(card, BADGE_X, BADGE_Y, BADGE_W + 1, BADGE_H + 1, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                showUrgencyOptions(card.getLeft() + 225, card.getTop() + 30);
+                playSound("click.wav");
+            }
+        });
     }
 
     /**
      * Opens the urgency menu for this task card.
+     *
+     * @param centerX Horizontal center of the card on screen.
+     * @param centerY Vertical center of the card on screen.
      */
-    private void showUrgencyOptions() {
-        World w = getWorld();
+    private void showUrgencyOptions(int centerX, int centerY) {
+        World w = parentPanel != null ? parentPanel.getWorld() : null;
         if (w == null) return;
 
         for (UrgencyMenu m : w.getObjects(UrgencyMenu.class)) {
@@ -142,30 +230,39 @@ public class TaskCard extends Actor {
         }
 
         UrgencyMenu menu = new UrgencyMenu(this);
-        w.addObject(menu, getX() + 35, getY() + 45);
+        w.addObject(menu, centerX + 35, centerY + 45);
     }
 
     /**
      * Toggles the task's completion status and refreshes the parent panel.
      */
     private void toggleCompletion() {
-        if (completed) user.getTasks().markIncomplete(task);
-        else user.getTasks().markCompleted(task);
+        if (completed) {
+            user.getActivity().record(ActivityCounters.TASKS, task.getCompletedDay(), -1);
+            user.getTasks().markIncomplete(task);
+        } else {
+            user.getTasks().markCompleted(task);
+            user.getActivity().record(ActivityCounters.TASKS, task.getCompletedDay(), 1);
+        }
 
         completed = !completed;  
+        user.changed();
         playSound("click.wav");
 
         if (parentPanel != null) parentPanel.refreshTasks();
     }
 
     /**
-     * Sets the task's urgency level and updates the visual card.
+     * Sets the task's urgency level and redraws just the badge, in the card
+     * and in the panel that shows it.
      *
      * @param index Index corresponding to the urgency level.
      */
     public void setUrgency(int index) {
         task.setUrgencyLevel(index);
-        updateImage();
+        if (update() && parentPanel != null) {
+            parentPanel.cardChanged(this, BADGE_X, BADGE_Y, BADGE_W + 1, BADGE_H + 1);
+        }
     }
 
     /**
@@ -1,4 +1,5 @@
 import java.io.Serializable;
+import java.time.LocalDate;
 
 /**
  * Represents a single task with a name, urgency level, and completion status.
@@ -18,6 +19,9 @@ public class TaskData implements Serializable {
     /** Completion status of the task */
     private boolean completed;
 
+    /** Day the task was last completed, as days since 1970-01-01 (only meaningful while completed) */
+    private long completedDay;
+
     /**
      * Constructs a TaskData object with a specific name and urgency level.
      * The task is initially not completed.
@@ -60,9 +64,15 @@ public class TaskData implements Serializable {
         return completed;
     }
 
-    /** Sets the completion status of the task */
+    /** Sets the completion status of the task, remembering today as the completion day */
     public void setCompleted(boolean completed) {
+        if (completed && !this.completed) completedDay = LocalDate.now().toEpochDay();
         this.completed = completed;
     }
+
+    /** Returns the day the task was completed, as days since 1970-01-01 */
+    public long getCompletedDay() {
+        return completedDay;
+    }
 }
 
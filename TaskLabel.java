@@ -17,21 +17,25 @@ public class TaskLabel extends Actor {
      * @param textGreen Green component of the text color (0-255).
      * @param textBlue  Blue component of the text color (0-255).
      */
-    public TaskLabel(String text, int bgRed, int bgGreen, int bgBlue,
-                     int textRed, int textGreen, int textBlue) {
-        // Create the image for the label
-        GreenfootImage img = new GreenfootImage(200, 30);
+    public TaskLabel(final String text, final int bgRed, final int bgGreen, final int bgBlue,
+                     final int textRed, final int textGreen, final int textBlue) {
+        // Reuse the image of an identical label if one was drawn before
+        String key = ImageCache.key("TaskLabel", text, bgRed, bgGreen, bgBlue, textRed, textGreen, textBlue);
+        setImage(ImageCache.get(key, new ImageCache.Renderer() {
+            public GreenfootImage render() {
+                // Create the image for the label
+                GreenfootImage img = new GreenfootImage(200, 30);
 
-        // Fill the background
-        img.setColor(new greenfoot.Color(bgRed, bgGreen, bgBlue));
-        img.fill();
+                // Fill the background
+                img.setColor(new greenfoot.Color(bgRed, bgGreen, bgBlue));
+                img.fill();
 
-        // Draw the text
-        img.setColor(new greenfoot.Color(textRed, textGreen, textBlue));
-        img.drawString(text, 5, 20);
-
-        // Set the image to this Actor
-        setImage(img);
+                // Draw the text
+                img.setColor(new greenfoot.Color(textRed, textGreen, textBlue));
+                img.drawString(text, 5, 20);
+                return img;
+            }
+        }));
     }
 }
 
@@ -5,13 +5,30 @@ import java.util.ArrayList;
  * TaskPanel is a visual panel for displaying a user's tasks in Greenfoot.
  * It separates tasks into "To Do" and "Completed" sections, allows adding
  * new tasks, and manages TaskCard objects for display.
+ *
+ * The panel is composited: headings and cards are drawn into the panel's
+ * own image rather than added to the world, and each card in view registers
+ * its click regions with the dashboard's InputDispatcher. Only the title and
+ * buttons are actors, so a long task list costs no more actors than a short
+ * one. The list scrolls with the arrow buttons or keys, and is virtualized
+ * by {@link SectionedCardList}, which keeps cards only for the rows in view.
+ *
+ * A change inside one card, such as its urgency badge, is patched into the
+ * panel image by {@link #cardChanged} instead of compositing the whole list.
  */
 public class TaskPanel extends Actor {
+    private static final int LIST_TOP = 105;     // Top of the list area, below the Add button
+    private static final int CARD_LEFT = 25;     // Left edge of the cards
+    private static final int CARD_WIDTH = 450;   // Width of a card, shadow included
+    private static final int CARD_HEIGHT = 60;   // Height of a card, shadow included
+    private static final int ROW_SPACING = 65;   // Distance between cards, also one scroll step
+
     private User user;                           // The user whose tasks are displayed
     private int width, height;                   // Panel dimensions
-    private ArrayList<TaskCard> cards = new ArrayList<>();      // Current TaskCard objects
+    private SectionedCardList<TaskData, TaskCard> list; // The To Do and Completed tasks, drawn into the panel image
     private ArrayList<Actor> panelElements = new ArrayList<>(); // All UI elements including labels and buttons
     private ButtonActor addButton;               // Button to add new tasks
+    private ButtonActor upButton, downButton;    // Scroll buttons, shown only when needed
 
     /**
      * Constructor for creating a TaskPanel.
@@ -24,6 +41,23 @@ public class TaskPanel extends Actor {
         this.user = user;
         this.width = width;
         this.height = height;
+        list = new SectionedCardList<>(new SectionedCardList.Cards<TaskData, TaskCard>() {
+            public TaskCard create(TaskData task, boolean completed) {
+                return new TaskCard(task, completed, TaskPanel.this.user, TaskPanel.this);
+            }
+
+            public void bind(TaskCard card, TaskData task, boolean completed) {
+                card.bind(task, completed);
+            }
+
+            public TaskData rowOf(TaskCard card) {
+                return card.getTask();
+            }
+
+            public void addHitRegions(TaskCard card, InputDispatcher input, InputDispatcher.Region region) {
+                card.addHitRegions(input, region);
+            }
+        }, width, height, LIST_TOP, CARD_LEFT, CARD_WIDTH, CARD_HEIGHT, ROW_SPACING);
         drawPanel();
     }
 
@@ -32,8 +66,14 @@ public class TaskPanel extends Actor {
      * Adds the title label and "Add Task" button.
      */
     protected void addedToWorld(World world) {
+        // Back from the dashboard's page cache: the title, buttons and cards come back with it
+        if (!panelElements.isEmpty()) {
+            list.restore();
+            return;
+        }
+
         // Title
-        TextLabel title = new TextLabel("My Tasks", 32, new greenfoot.Color(0, 0, 128), 200, 40, new greenfoot.Color(0,0,0,0));
+        TextLabel title = new TextLabel("My Tasks", 32, Theme.current().accent, 200, 40, new greenfoot.Color(0,0,0,0));
         world.addObject(title, getX(), getY() - height / 2 + 30);
         panelElements.add(title);
 
@@ -43,6 +83,7 @@ public class TaskPanel extends Actor {
                 String taskName = Greenfoot.ask("Enter new task:");
                 if (taskName != null && !taskName.trim().isEmpty()) {
                     user.getTasks().addTask(taskName.trim(), 1); // default urgency = 1 (Normal)
+                    user.changed();
                     refreshTasks();
                 }
             }
@@ -50,103 +91,128 @@ public class TaskPanel extends Actor {
         world.addObject(addButton, getX(), getY() - height / 2 + 80);
         panelElements.add(addButton);
 
+        // The list's click region; redraw registers the cards in view inside it
+        list.register(this);
+
+        // Scroll buttons (added to the world by refreshTasks when needed)
+        upButton = new ButtonActor("▲", 239, 232, 219, 0, 0, 128, 30, 30) {
+            public void onClick() {
+                scrollList(-1);
+            }
+        };
+        downButton = new ButtonActor("▼", 239, 232, 219, 0, 0, 128, 30, 30) {
+            public void onClick() {
+                scrollList(1);
+            }
+        };
+
         refreshTasks();
     }
 
     /**
-     * Draws the panel background with a beige gradient and navy border.
+     * Shows the theme's panel background (a gradient with a double border).
      */
     private void drawPanel() {
-        GreenfootImage img = new GreenfootImage(width, height);
-
-        // Gradient background
-        for (int i = 0; i < height; i++) {
-            int r = 239 - (i * 10 / height);
-            int g = 232 - (i * 10 / height);
-            int b = 219 - (i * 10 / height);
-            img.setColor(new greenfoot.Color(r,g,b));
-            img.drawLine(0, i, width, i);
-        }
-
-        // Navy border
-        img.setColor(new greenfoot.Color(0,0,128));
-        img.drawRect(0,0,width-1,height-1);
-        img.drawRect(1,1,width-3,height-3);
-
-        setImage(img);
+        setImage(Theme.current().panelBackground(width, height));
     }
 
     /**
      * Refreshes the displayed tasks.
-     * Clears old TaskCard objects and labels, then re-displays To Do and Completed tasks.
+     * Lays out the To Do and Completed sections, which only computes where
+     * each row goes, then draws the panel again.
      */
     public void refreshTasks() {
         World w = getWorld();
         if (w == null) return;
 
-        // Remove old cards
-        for (TaskCard c : cards) {
-            if (c.getWorld() != null) w.removeObject(c);
-        }
-        cards.clear();
+        list.setRows(user.getTasks().getToDo(), user.getTasks().getCompleted());
 
-        // Remove old labels (except title)
-        for (Actor a : new ArrayList<>(panelElements)) {
-            if (a instanceof TextLabel && a != panelElements.get(0)) {
-                if (a.getWorld() != null) w.removeObject(a);
-                panelElements.remove(a);
-            }
+        // Scroll buttons only when the list doesn't fit
+        int buttonY = getY() - height / 2 + 80;
+        showIf(w, upButton, list.getScroll().isScrollable(), getX() + width / 2 - 65, buttonY);
+        showIf(w, downButton, list.getScroll().isScrollable(), getX() + width / 2 - 30, buttonY);
+
+        redraw();
+    }
+
+    /**
+     * Copies a changed part of a card into the panel image, leaving the rest
+     * of the panel as it is. Nothing is drawn if the card is out of view.
+     *
+     * @param card   The card that changed
+     * @param x      Left edge of the changed part, relative to the card
+     * @param y      Top edge of the changed part, relative to the card
+     * @param width  Width of the changed part
+     * @param height Height of the changed part
+     */
+    public void cardChanged(TaskCard card, int x, int y, int width, int height) {
+        list.cardChanged(card, x, y, width, height, getImage());
+    }
+
+    /**
+     * Draws the headings and the cards in view into the panel image, or a
+     * message if there are no tasks.
+     */
+    public void redraw() {
+        long start = Profiler.start();
+        Theme theme = Theme.current();
+        GreenfootImage img = new GreenfootImage(theme.panelBackground(width, height));
+        list.draw(img, theme);
+
+        // Show empty message if no tasks exist
+        if (list.isEmpty()) {
+            img.setColor(theme.mutedText);
+            TextLayout.drawCentered(img, "No tasks yet. Click '+ New Task' to add one!", Theme.MESSAGE_FONT, width / 2, height / 2 + 6);
         }
+        setImage(img);
+        Profiler.stop(this, "redraw", start);
+    }
 
-        int y = getY() - height / 2 + 130;
-        int spacing = 65;
-
-        ArrayList<TaskData> todo = user.getTasks().getToDo();
-        ArrayList<TaskData> done = user.getTasks().getCompleted();
-
-        // Display To Do tasks
-        if (!todo.isEmpty()) {
-            TextLabel todoLabel = new TextLabel("To Do", 20, new greenfoot.Color(0,0,128), 150, 30, new greenfoot.Color(0,0,0,0));
-            w.addObject(todoLabel, getX() - 150, y);
-            panelElements.add(todoLabel);
-            y += 40;
-
-            for (TaskData t : todo) {
-                TaskCard card = new TaskCard(t, false, user, this);
-                w.addObject(card, getX(), y);
-                cards.add(card);
-                panelElements.add(card);
-                y += spacing;
-            }
+    /**
+     * Scrolls with the arrow keys. Clicks on the cards arrive through the InputDispatcher.
+     */
+    public void act() {
+        long start = Profiler.start();
+        if (list.getScroll().pollArrowKeys()) {
+            closeUrgencyMenus();
+            redraw();
         }
+        Profiler.stop(this, "act", start);
+    }
 
-        // Display Completed tasks
-        if (!done.isEmpty()) {
-            y += 10;
-            TextLabel doneLabel = new TextLabel("Completed", 20, new greenfoot.Color(0,150,0), 150, 30, new greenfoot.Color(0,0,0,0));
-            w.addObject(doneLabel, getX() - 150, y);
-            panelElements.add(doneLabel);
-            y += 40;
-
-            for (TaskData t : done) {
-                TaskCard card = new TaskCard(t, true, user, this);
-                w.addObject(card, getX(), y);
-                cards.add(card);
-                panelElements.add(card);
-                y += spacing;
-            }
+    /**
+     * Scrolls the list by some rows and draws it again.
+     */
+    private void scrollList(int delta) {
+        if (list.getScroll().scrollBy(delta)) {
+            closeUrgencyMenus();
+            redraw();
         }
+    }
 
-        // Show empty message if no tasks exist
-        if (todo.isEmpty() && done.isEmpty()) {
-            TextLabel emptyMsg = new TextLabel("No tasks yet. Click '+ New Task' to add one!", 18, new greenfoot.Color(100,100,100), 400, 30, new greenfoot.Color(0,0,0,0));
-            w.addObject(emptyMsg, getX(), getY());
-            panelElements.add(emptyMsg);
+    /**
+     * Closes an open urgency menu, since scrolling may bind its card to another task.
+     */
+    private void closeUrgencyMenus() {
+        World w = getWorld();
+        if (w != null) w.removeObjects(w.getObjects(UrgencyMenu.class));
+    }
+
+    /**
+     * Adds or removes a panel actor depending on a condition.
+     */
+    private void showIf(World world, Actor actor, boolean show, int x, int y) {
+        if (show && actor.getWorld() == null) {
+            world.addObject(actor, x, y);
+            panelElements.add(actor);
+        } else if (!show && actor.getWorld() != null) {
+            world.removeObject(actor);
+            panelElements.remove(actor);
         }
     }
 
     /**
-     * Removes all elements (TaskCards, labels, buttons) from the panel.
+     * Removes all elements (labels, buttons) from the panel and drops its tasks and cards.
      * Useful for cleanup when switching worlds or panels.
      */
     public void removeAllElements() {
@@ -158,7 +224,7 @@ public class TaskPanel extends Actor {
         }
 
         panelElements.clear();
-        cards.clear();
+        list.clear();
     }
 }
 
@@ -10,6 +10,13 @@ public class TextLabel extends Actor {
      */
     public Runnable onClick;
 
+    private String text;                 // Text currently displayed
+    private int fontSize;                // Font size for the text
+    private greenfoot.Color textColor;   // Color of the text
+    private int width, height;           // Label dimensions
+    private greenfoot.Color bgColor;     // Background color
+    private InputDispatcher.Region clickRegion; // Set while an InputDispatcher delivers the clicks
+
     /**
      * Constructs a TextLabel with specified text, font size, colors, and dimensions.
      *
@@ -21,19 +28,51 @@ public class TextLabel extends Actor {
      * @param bgColor   Background color of the label
      */
     public TextLabel(String text, int fontSize, greenfoot.Color textColor, int width, int height, greenfoot.Color bgColor) {
-        GreenfootImage img = new GreenfootImage(width, height);
+        this.text = text;
+        this.fontSize = fontSize;
+        this.textColor = textColor;
+        this.width = width;
+        this.height = height;
+        this.bgColor = bgColor;
+        updateImage();
+    }
 
-        // Draw background
-        img.setColor(bgColor);
-        img.fillRect(0, 0, width, height);
+    /**
+     * Changes the displayed text, redrawing only if it is different.
+     * Lets panels reuse a label (e.g. a month title) instead of replacing it.
+     *
+     * @param text The new text to display
+     */
+    public void setText(String text) {
+        if (text.equals(this.text)) return;
+        this.text = text;
+        updateImage();
+    }
+
+    /**
+     * Shows the background and the centered text, reusing the image of an
+     * identical label from {@link ImageCache} when there is one.
+     */
+    private void updateImage() {
+        long start = Profiler.start();
+        setImage(ImageCache.get(ImageCache.key("TextLabel", text, fontSize, textColor, width, height, bgColor),
+            new ImageCache.Renderer() {
+                public GreenfootImage render() {
+                    GreenfootImage img = new GreenfootImage(width, height);
 
-        // Draw centered text
-        GreenfootImage textImg = new GreenfootImage(text, fontSize, textColor, new greenfoot.Color(0,0,0,0));
-        int x = (width - textImg.getWidth()) / 2;
-        int y = (height - textImg.getHeight()) / 2;
-        img.drawImage(textImg, x, y);
+                    // Draw background
+                    img.setColor(bgColor);
+                    img.fillRect(0, 0, width, height);
 
-        setImage(img);
+                    // Draw centered text
+                    GreenfootImage textImg = new GreenfootImage(text, fontSize, textColor, new greenfoot.Color(0,0,0,0));
+                    int x = (width - textImg.getWidth()) / 2;
+                    int y = (height - textImg.getHeight()) / 2;
+                    img.drawImage(textImg, x, y);
+                    return img;
+                }
+            }));
+        Profiler.stop(this, "updateImage", start);
     }
 
     /**
@@ -43,14 +82,37 @@ public class TextLabel extends Actor {
      */
     public void setClickable(Runnable action) {
         this.onClick = action;
+        if (getWorld() != null) attachClicks();
+    }
+
+    /**
+     * Registers a clickable label with the world's InputDispatcher, if it has one.
+     */
+    protected void addedToWorld(World world) {
+        attachClicks();
+    }
+
+    /**
+     * Registers the label's click region, if it is clickable.
+     */
+    private void attachClicks() {
+        if (onClick == null) return;
+        clickRegion = InputDispatcher.attach(this, new InputDispatcher.Handler() {
+            public void clicked(int x, int y) {
+                onClick.run();
+            }
+        });
     }
 
     /**
-     * Act method to detect clicks and trigger the assigned action if present.
+     * Act method to detect clicks and trigger the assigned action if present,
+     * unless an InputDispatcher delivers the clicks.
      */
     public void act() {
-        if (onClick != null && Greenfoot.mouseClicked(this)) {
+        long start = Profiler.start();
+        if (onClick != null && clickRegion == null && Greenfoot.mouseClicked(this)) {
             onClick.run();
         }
+        Profiler.stop(this, "act", start);
     }
 }
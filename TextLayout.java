@@ -0,0 +1,236 @@
+import greenfoot.*;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TextLayout measures, wraps and ellipsizes text for the card widgets
+ * (NoteCard, EventItem, TaskCard).
+ * Glyph advances are cached per font, so measuring a line never rasterizes
+ * an image, and finished line breaks are memoized by (text, width, font).
+ * The public methods are synchronized so the calendar's background
+ * prefetch thread can lay out text too.
+ */
+public class TextLayout {
+
+    /** Appended to text that had to be cut to fit */
+    public static final String ELLIPSIS = "...";
+
+    /** Maximum number of memoized line-break results kept in memory */
+    private static final int MAX_CACHED_LAYOUTS = 512;
+
+    /** Glyph advance tables, one per distinct font */
+    private static final HashMap<String, GlyphAdvances> advances = new HashMap<>();
+
+    /** Memoized line breaks, evicted least-recently-used */
+    private static final LinkedHashMap<String, List<String>> layouts =
+        new LinkedHashMap<String, List<String>>(64, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                return size() > MAX_CACHED_LAYOUTS;
+            }
+        };
+
+    /** Scratch graphics context used only to obtain FontMetrics */
+    private static Graphics2D scratch;
+
+    /**
+     * Returns the width in pixels of a string drawn in the given font.
+     *
+     * @param text The text to measure
+     * @param font The font the text will be drawn with
+     * @return Width in pixels
+     */
+    public static synchronized int stringWidth(String text, Font font) {
+        return advancesFor(font).width(text, 0, text.length());
+    }
+
+    /**
+     * Breaks text into lines no wider than maxWidth, breaking at spaces.
+     * If the text needs more than maxLines lines, the last line is
+     * ellipsized. Results are memoized, so repeated calls with the same
+     * text, width and font are a single map lookup.
+     *
+     * @param text     The text to wrap
+     * @param font     The font the text will be drawn with
+     * @param maxWidth Maximum line width in pixels
+     * @param maxLines Maximum number of lines to return
+     * @return Unmodifiable list of lines
+     */
+    public static synchronized List<String> wrap(String text, Font font, int maxWidth, int maxLines) {
+        String key = fontKey(font) + '\u0000' + maxWidth + '\u0000' + maxLines + '\u0000' + text;
+        List<String> lines = layouts.get(key);
+        if (lines == null) {
+            lines = Collections.unmodifiableList(breakLines(text, advancesFor(font), maxWidth, maxLines));
+            layouts.put(key, lines);
+        }
+        return lines;
+    }
+
+    /**
+     * Shortens text so it fits within maxWidth, appending "..." if it was cut.
+     *
+     * @param text     The text to fit
+     * @param font     The font the text will be drawn with
+     * @param maxWidth Maximum width in pixels
+     * @return The text itself if it fits, otherwise a shortened copy
+     */
+    public static synchronized String ellipsize(String text, Font font, int maxWidth) {
+        return ellipsize(text, advancesFor(font), maxWidth);
+    }
+
+    /**
+     * Draws a line of text horizontally centered on a point, in the image's
+     * current color. Panels use it to draw headings and messages into
+     * their own image.
+     *
+     * @param img      The image to draw on
+     * @param text     The text to draw
+     * @param font     The font to draw it in
+     * @param centerX  Horizontal center of the text
+     * @param baseline Baseline of the text
+     */
+    public static void drawCentered(GreenfootImage img, String text, Font font, int centerX, int baseline) {
+        img.setFont(font);
+        img.drawString(text, centerX - stringWidth(text, font) / 2, baseline);
+    }
+
+    /**
+     * Greedy line breaking over the cached glyph advances.
+     */
+    private static List<String> breakLines(String text, GlyphAdvances glyphs, int maxWidth, int maxLines) {
+        ArrayList<String> lines = new ArrayList<>();
+        int spaceWidth = glyphs.advance(' ');
+        StringBuilder line = new StringBuilder();
+        int lineWidth = 0;
+        int i = 0;
+        int n = text.length();
+
+        while (i < n) {
+            // Find the next word
+            int start = i;
+            while (i < n && text.charAt(i) != ' ') i++;
+            int wordWidth = glyphs.width(text, start, i);
+
+            if (line.length() > 0 && lineWidth + wordWidth > maxWidth) {
+                if (lines.size() == maxLines - 1) {
+                    // Out of lines: the rest goes into an ellipsized last line
+                    line.append(text, start, n);
+                    lines.add(ellipsize(line.toString().trim(), glyphs, maxWidth));
+                    return lines;
+                }
+                lines.add(line.toString().trim());
+                line.setLength(0);
+                lineWidth = 0;
+            }
+            line.append(text, start, i).append(' ');
+            lineWidth += wordWidth + spaceWidth;
+
+            // Skip the space(s) between words
+            while (i < n && text.charAt(i) == ' ') i++;
+        }
+
+        if (line.length() > 0 && lines.size() < maxLines) {
+            lines.add(ellipsize(line.toString().trim(), glyphs, maxWidth));
+        }
+        return lines;
+    }
+
+    /**
+     * Cuts text to fit maxWidth using the given advance table.
+     */
+    private static String ellipsize(String text, GlyphAdvances glyphs, int maxWidth) {
+        if (glyphs.width(text, 0, text.length()) <= maxWidth) return text;
+
+        int budget = maxWidth - glyphs.width(ELLIPSIS, 0, ELLIPSIS.length());
+        int width = 0;
+        int end = 0;
+        while (end < text.length()) {
+            int next = width + glyphs.advance(text.charAt(end));
+            if (next > budget) break;
+            width = next;
+            end++;
+        }
+        return text.substring(0, end) + ELLIPSIS;
+    }
+
+    /**
+     * Returns the advance table for a font, creating it on first use.
+     */
+    private static GlyphAdvances advancesFor(Font font) {
+        String key = fontKey(font);
+        GlyphAdvances glyphs = advances.get(key);
+        if (glyphs == null) {
+            if (scratch == null) {
+                scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+            }
+            glyphs = new GlyphAdvances(scratch.getFontMetrics(toAwtFont(font)));
+            advances.put(key, glyphs);
+        }
+        return glyphs;
+    }
+
+    /**
+     * Converts a Greenfoot font to the equivalent AWT font.
+     *
+     * @param font The Greenfoot font
+     * @return AWT font with the same name, style and size
+     */
+    public static java.awt.Font toAwtFont(Font font) {
+        int style = java.awt.Font.PLAIN;
+        if (font.isBold()) style |= java.awt.Font.BOLD;
+        if (font.isItalic()) style |= java.awt.Font.ITALIC;
+        return new java.awt.Font(font.getName(), style, font.getSize());
+    }
+
+    /**
+     * Builds a string that identifies a font by name, style and size.
+     */
+    private static String fontKey(Font font) {
+        return font.getName() + '|' + (font.isBold() ? 'b' : '-') + (font.isItalic() ? 'i' : '-') + '|' + font.getSize();
+    }
+
+    /**
+     * Per-font table of character advances. Latin-1 characters live in a
+     * flat array; anything else (emoji, symbols) goes in a map.
+     */
+    private static class GlyphAdvances {
+        private final FontMetrics metrics;
+        private final int[] latin = new int[256];
+        private final HashMap<Character, Integer> other = new HashMap<>();
+
+        GlyphAdvances(FontMetrics metrics) {
+            this.metrics = metrics;
+            Arrays.fill(latin, -1);
+        }
+
+        int advance(char c) {
+            if (c < 256) {
+                int w = latin[c];
+                if (w < 0) {
+                    w = metrics.charWidth(c);
+                    latin[c] = w;
+                }
+                return w;
+            }
+            Integer w = other.get(c);
+            if (w == null) {
+                w = metrics.charWidth(c);
+                other.put(c, w);
+            }
+            return w;
+        }
+
+        int width(String text, int start, int end) {
+            int total = 0;
+            for (int i = start; i < end; i++) total += advance(text.charAt(i));
+            return total;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import greenfoot.*;
+import java.util.HashMap;
+
+/**
+ * Theme is the dashboard's shared look: a palette of colors, the fonts used
+ * by cards, and pre-rendered backgrounds for panels and cards.
+ *
+ * Backgrounds (the panel gradient and border, the card shadow, face and
+ * border) are drawn once per size and kept by the theme, so panels and
+ * cards compose them instead of drawing them line by line every time they
+ * are created. Each theme keeps its own backgrounds; switching between the
+ * light and dark theme swaps which set is used and redraws nothing that was
+ * drawn before.
+ *
+ * Cached backgrounds are shared and must not be drawn on; copy them with
+ * {@code new GreenfootImage(background)} first.
+ */
+public class Theme {
+
+    /** The beige and navy look */
+    public static final Theme LIGHT = new Theme(false);
+
+    /** Dark grey panels with light text */
+    public static final Theme DARK = new Theme(true);
+
+    /** Font for card titles */
+    public static final Font CARD_FONT = new Font("Arial", false, false, 16);
+
+    /** Font for card details, e.g. a teacher's name */
+    public static final Font DETAIL_FONT = new Font("Arial", false, true, 13);
+
+    /** Font for small badges */
+    public static final Font BADGE_FONT = new Font("Arial", false, false, 13);
+
+    /** Font for section headings inside panels, e.g. "To Do" */
+    public static final Font HEADING_FONT = new Font("Arial", false, false, 20);
+
+    /** Font for messages shown in empty panels */
+    public static final Font MESSAGE_FONT = new Font("Arial", false, false, 18);
+
+    /** Heading of the "Completed" sections, the same in both themes */
+    public static final greenfoot.Color DONE_HEADING = new greenfoot.Color(0, 150, 0);
+
+    private static Theme current = LIGHT;       // The theme in use
+
+    /** True for the dark theme */
+    public final boolean dark;
+
+    /** Background of the dashboard behind the panels */
+    public final greenfoot.Color pageBackground;
+
+    /** Titles, headings and borders */
+    public final greenfoot.Color accent;
+
+    /** Ordinary text on panels and cards */
+    public final greenfoot.Color text;
+
+    /** Secondary text, e.g. hints and subtitles */
+    public final greenfoot.Color mutedText;
+
+    /** Text of completed items */
+    public final greenfoot.Color doneText;
+
+    /** Details on cards, e.g. a teacher's name */
+    public final greenfoot.Color detailText;
+
+    private final greenfoot.Color panelTop;     // Top of the panel gradient (it darkens by 10 towards the bottom)
+    private final greenfoot.Color cardBack, cardBackDone;   // Behind a card's shadow
+    private final greenfoot.Color cardShadow;               // A card's drop shadow
+    private final greenfoot.Color cardFace, cardFaceDone;   // A card's face
+    private final HashMap<String, GreenfootImage> backgrounds = new HashMap<>(); // Drawn backgrounds by kind and size
+
+    /**
+     * Sets up the palette of the light or dark theme.
+     */
+    private Theme(boolean dark) {
+        this.dark = dark;
+        if (dark) {
+            pageBackground = new greenfoot.Color(30, 32, 40);
+            accent = new greenfoot.Color(140, 170, 255);
+            text = new greenfoot.Color(235, 235, 240);
+            mutedText = new greenfoot.Color(170, 170, 180);
+            doneText = new greenfoot.Color(140, 140, 150);
+            detailText = new greenfoot.Color(160, 170, 210);
+            panelTop = new greenfoot.Color(52, 54, 64);
+            cardBack = new greenfoot.Color(40, 42, 50);
+            cardBackDone = new greenfoot.Color(35, 37, 44);
+            cardShadow = new greenfoot.Color(20, 20, 25);
+            cardFace = new greenfoot.Color(62, 65, 78);
+            cardFaceDone = new greenfoot.Color(50, 52, 60);
+        } else {
+            pageBackground = new greenfoot.Color(239, 232, 219);
+            accent = new greenfoot.Color(0, 0, 128);
+            text = new greenfoot.Color(0, 0, 0);
+            mutedText = new greenfoot.Color(100, 100, 100);
+            doneText = new greenfoot.Color(100, 100, 100);
+            detailText = new greenfoot.Color(100, 100, 150);
+            panelTop = new greenfoot.Color(239, 232, 219);
+            cardBack = new greenfoot.Color(250, 245, 235);
+            cardBackDone = new greenfoot.Color(220, 215, 200);
+            cardShadow = new greenfoot.Color(200, 190, 170);
+            cardFace = new greenfoot.Color(255, 250, 240);
+            cardFaceDone = new greenfoot.Color(230, 225, 210);
+        }
+    }
+
+    /**
+     * Returns the theme in use.
+     *
+     * @return LIGHT or DARK
+     */
+    public static Theme current() {
+        return current;
+    }
+
+    /**
+     * Switches between the light and dark theme. Pages shown afterwards use
+     * the other theme's palette and backgrounds.
+     */
+    public static void toggle() {
+        current = current == LIGHT ? DARK : LIGHT;
+    }
+
+    /**
+     * Returns a panel background: a vertical gradient with a double border.
+     *
+     * @param width  Width of the panel
+     * @param height Height of the panel
+     * @return The shared background image
+     */
+    public GreenfootImage panelBackground(final int width, final int height) {
+        return background("panel", width, height, new ImageCache.Renderer() {
+            public GreenfootImage render() {
+                GreenfootImage img = new GreenfootImage(width, height);
+
+                // Gradient background
+                for (int i = 0; i < height; i++) {
+                    int shade = i * 10 / height;
+                    img.setColor(new greenfoot.Color(panelTop.getRed() - shade, panelTop.getGreen() - shade, panelTop.getBlue() - shade));
+                    img.drawLine(0, i, width, i);
+                }
+
+                // Double border
+                img.setColor(accent);
+                img.drawRect(0, 0, width - 1, height - 1);
+                img.drawRect(1, 1, width - 3, height - 3);
+                return img;
+            }
+        });
+    }
+
+    /**
+     * Returns a card background: the face with a border and a drop shadow
+     * offset by 2 pixels, plus a checkbox frame at (10, checkboxY).
+     *
+     * @param width     Width of the card, shadow included
+     * @param height    Height of the card, shadow included
+     * @param checkboxY Top of the 18x18 checkbox
+     * @param completed true for the greyed look of a completed item
+     * @return The shared background image
+     */
+    public GreenfootImage cardBackground(final int width, final int height, final int checkboxY, final boolean completed) {
+        String kind = "card" + checkboxY + (completed ? "done" : "");
+        return background(kind, width, height, new ImageCache.Renderer() {
+            public GreenfootImage render() {
+                GreenfootImage img = new GreenfootImage(width, height);
+                img.setColor(completed ? cardBackDone : cardBack);
+                img.fill();
+
+                // Shadow, then the face on top of it
+                img.setColor(cardShadow);
+                img.fillRect(2, 2, width - 4, height - 4);
+                img.setColor(completed ? cardFaceDone : cardFace);
+                img.fillRect(0, 0, width - 4, height - 4);
+
+                img.setColor(accent);
+                img.drawRect(0, 0, width - 5, height - 5);
+                img.drawRect(10, checkboxY, 18, 18);
+                return img;
+            }
+        });
+    }
+
+    /**
+     * Returns a background from this theme's cache, drawing it on first use.
+     * Only a handful of kinds and sizes exist, so the cache is not bounded.
+     */
+    private GreenfootImage background(String kind, int width, int height, ImageCache.Renderer renderer) {
+        String key = kind + ":" + width + "x" + height;
+        GreenfootImage image = backgrounds.get(key);
+        if (image == null) {
+            image = renderer.render();
+            backgrounds.put(key, image);
+        }
+        return image;
+    }
+}
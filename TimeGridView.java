@@ -0,0 +1,289 @@
+import greenfoot.*;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * TimeGridView shows one or more days (the calendar's day and week views)
+ * as columns with hourly time slots. Timed events are drawn as blocks at
+ * their time, placed side by side by {@link OverlapLayout} when they
+ * overlap; all-day events are listed in a strip above the hours.
+ *
+ * Each day column is drawn into its own image and only redrawn when that
+ * day's events change, so editing one event in a week redraws one column.
+ * Blocks are colored by calendar; hiding a calendar filters the events
+ * each column already has and redraws only the columns that had some.
+ * Clicking a column opens that day's event popup.
+ */
+public class TimeGridView extends Actor {
+
+    private static final int FIRST_HOUR = 8;    // First hour shown
+    private static final int LAST_HOUR = 22;    // Hour the grid ends at
+    private static final int GUTTER = 36;       // Width of the hour labels on the left
+    private static final int HEADER = 18;       // Height of the day name row
+    private static final int ALL_DAY = 16;      // Height of the all-day strip
+
+    private User currentUser;                   // The user owning the events
+    private CalendarPanel parentPanel;          // The panel containing this view
+    private int width, height;                  // Size of the view
+    private long firstDay;                      // First day shown, as days since 1970-01-01
+    private int dayCount;                       // Number of days (columns) shown
+    private OverlapLayout layout = new OverlapLayout(); // Column packing, cached per day
+    private String[] columnKeys = new String[0];        // What each column image shows
+    private GreenfootImage[] columnImages = new GreenfootImage[0]; // Drawn day columns
+    private List<List<Event>> columnEvents = new ArrayList<>();    // Each day's events in every calendar
+    private InputDispatcher.Region clickRegion; // Set while an InputDispatcher delivers the clicks
+
+    /**
+     * Constructs an empty time grid; call show() to pick the days.
+     *
+     * @param user   The user owning the events
+     * @param panel  The calendar panel containing the view
+     * @param width  Width of the view
+     * @param height Height of the view
+     */
+    public TimeGridView(User user, CalendarPanel panel, int width, int height) {
+        this.currentUser = user;
+        this.parentPanel = panel;
+        this.width = width;
+        this.height = height;
+        setImage(new GreenfootImage(width, height)); // Blank until show(), but already its full size for the click region
+    }
+
+    /**
+     * Shows a range of days, one column each.
+     *
+     * @param firstDay First day, as days since 1970-01-01
+     * @param dayCount Number of days (1 for a day view, 7 for a week view)
+     */
+    public void show(long firstDay, int dayCount) {
+        boolean changedCount = dayCount != this.dayCount;
+        if (firstDay != this.firstDay || changedCount) {
+            this.firstDay = firstDay;
+            this.dayCount = dayCount;
+            columnKeys = new String[dayCount];
+            columnImages = new GreenfootImage[dayCount];
+            columnEvents = new ArrayList<>(Collections.<List<Event>>nCopies(dayCount, null));
+            if (changedCount) addColumnRegions();
+        }
+        refresh();
+    }
+
+    /**
+     * Registers the view with the world's InputDispatcher, if it has one,
+     * with a sub-region per day column.
+     */
+    protected void addedToWorld(World world) {
+        clickRegion = InputDispatcher.attach(this, null);
+        addColumnRegions();
+    }
+
+    /**
+     * Replaces the column sub-regions to match the days shown. A click on
+     * an event block lands in its column, so it opens that day's popup too.
+     */
+    private void addColumnRegions() {
+        if (clickRegion == null) return;
+        InputDispatcher input = InputDispatcher.of(getWorld());
+        input.removeChildren(clickRegion);
+
+        int columnWidth = dayCount > 0 ? (width - GUTTER) / dayCount : 0;
+        for (int i = 0; i < dayCount; i++) {
+            final int column = i;
+            input.add(clickRegion, GUTTER + i * columnWidth, 0, columnWidth, height, new InputDispatcher.Handler() {
+                public void clicked(int x, int y) {
+                    parentPanel.openDay(firstDay + column);
+                }
+            });
+        }
+    }
+
+    /**
+     * Re-reads the shown days' events and redraws the columns that changed.
+     */
+    public void refresh() {
+        if (dayCount == 0) return;
+
+        CalendarEventStore store = currentUser.getEventStore();
+        for (int i = 0; i < dayCount; i++) {
+            columnEvents.set(i, store.getEventsOn(firstDay + i));
+        }
+        redrawColumns(false, Event.ALL_CATEGORIES);
+    }
+
+    /**
+     * Redraws the columns after calendars were hidden or shown, using the
+     * events the columns already have.
+     *
+     * @param changedCategories Category bits whose visibility changed
+     */
+    public void applyFilter(int changedCategories) {
+        if (dayCount == 0) return;
+        redrawColumns(true, changedCategories);
+    }
+
+    /**
+     * Redraws the columns whose picture changed. After a filter change only
+     * columns with events in the changed categories can differ, so the
+     * others are skipped; after the events were re-read every column is
+     * checked, since a day that lost all its events has none left to match.
+     *
+     * @param filterOnly True if only the visible categories changed
+     * @param categories Category bits whose visibility changed
+     */
+    private void redrawColumns(boolean filterOnly, int categories) {
+        long start = Profiler.start();
+        int visible = parentPanel.getVisibleCategories();
+        long today = LocalDate.now().toEpochDay();
+        boolean changed = false;
+        for (int i = 0; i < dayCount; i++) {
+            List<Event> all = columnEvents.get(i);
+            if (filterOnly && columnKeys[i] != null && !hasCategory(all, categories)) continue;
+
+            long day = firstDay + i;
+            List<Event> events = CalendarDay.filter(all, visible);
+            String key = describe(day, day == today, events);
+            if (!key.equals(columnKeys[i])) {
+                columnKeys[i] = key;
+                columnImages[i] = renderColumn(day, day == today, events);
+                changed = true;
+            }
+        }
+        if (changed) compose();
+        Profiler.stop(this, "redrawColumns", start);
+    }
+
+    /**
+     * Returns true if any of the events is in one of the given categories.
+     */
+    private static boolean hasCategory(List<Event> events, int categories) {
+        for (Event event : events) {
+            if (event.inCategories(categories)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Opens the event popup of the day column that was clicked, unless an
+     * InputDispatcher delivers the clicks.
+     */
+    public void act() {
+        long start = Profiler.start();
+        if (clickRegion == null && dayCount > 0 && Greenfoot.mouseClicked(this)) {
+            MouseInfo mouse = Greenfoot.getMouseInfo();
+            if (mouse != null) {
+                int relX = mouse.getX() - (getX() - width / 2) - GUTTER;
+                int column = relX * dayCount / (width - GUTTER);
+                if (relX >= 0 && column < dayCount) {
+                    parentPanel.openDay(firstDay + column);
+                }
+            }
+        }
+        Profiler.stop(this, "act", start);
+    }
+
+    /**
+     * Draws the hour labels and lines, then the day columns, into the view's image.
+     */
+    private void compose() {
+        GreenfootImage img = new GreenfootImage(width, height);
+        img.setColor(new greenfoot.Color(255, 255, 255));
+        img.fill();
+
+        int columnWidth = (width - GUTTER) / dayCount;
+        for (int i = 0; i < dayCount; i++) {
+            img.drawImage(columnImages[i], GUTTER + i * columnWidth, 0);
+        }
+
+        img.setFont(new Font("Arial", false, false, 10));
+        img.setColor(new greenfoot.Color(120, 120, 120));
+        for (int hour = FIRST_HOUR; hour < LAST_HOUR; hour++) {
+            img.drawString(String.format("%02d:00", hour), 3, yOf(hour * 60) + 10);
+        }
+        setImage(img);
+    }
+
+    /**
+     * Draws one day: its name, all-day strip, hour lines and event blocks.
+     */
+    private GreenfootImage renderColumn(long day, boolean isToday, List<Event> events) {
+        int columnWidth = (width - GUTTER) / dayCount;
+        GreenfootImage img = new GreenfootImage(columnWidth, height);
+        img.setColor(isToday ? new greenfoot.Color(225, 235, 255) : new greenfoot.Color(255, 255, 255));
+        img.fill();
+
+        // Hour lines
+        img.setColor(new greenfoot.Color(230, 230, 230));
+        for (int hour = FIRST_HOUR; hour <= LAST_HOUR; hour++) {
+            img.drawLine(0, yOf(hour * 60), columnWidth, yOf(hour * 60));
+        }
+        img.drawLine(0, 0, 0, height);
+
+        // Day name and date
+        LocalDate date = LocalDate.ofEpochDay(day);
+        img.setFont(new Font("Arial", true, false, 11));
+        img.setColor(isToday ? new greenfoot.Color(0, 0, 128) : new greenfoot.Color(60, 60, 60));
+        img.drawString(date.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " " + date.getDayOfMonth(), 4, 13);
+
+        // All-day events: the first one and a count of the rest
+        Font smallFont = new Font("Arial", false, false, 9);
+        img.setFont(smallFont);
+        int allDayCount = 0;
+        for (Event event : events) {
+            if (!event.isAllDay()) continue;
+            if (allDayCount++ == 0) {
+                greenfoot.Color color = CalendarDay.categoryColor(event.getCategories());
+                img.setColor(new greenfoot.Color(color.getRed(), color.getGreen(), color.getBlue(), 50));
+                img.fillRect(1, HEADER, columnWidth - 2, ALL_DAY - 2);
+                img.setColor(color);
+                img.drawString(TextLayout.ellipsize(event.getName(), smallFont, columnWidth - 6), 3, HEADER + 10);
+            }
+        }
+        if (allDayCount > 1) {
+            img.setColor(new greenfoot.Color(100, 100, 100));
+            String more = "+" + (allDayCount - 1);
+            img.drawString(more, columnWidth - TextLayout.stringWidth(more, smallFont) - 3, HEADER + 10);
+        }
+
+        // Timed events, side by side where they overlap
+        for (OverlapLayout.Block block : layout.layoutDay(day, events)) {
+            int top = yOf(block.getStartMinute());
+            int bottom = Math.max(top + 6, yOf(block.getEndMinute()));
+            int left = 1 + block.getColumn() * (columnWidth - 2) / block.getColumns();
+            int right = 1 + (block.getColumn() + 1) * (columnWidth - 2) / block.getColumns();
+
+            img.setColor(CalendarDay.categoryColor(block.getEvent().getCategories()));
+            img.fillRect(left, top, right - left - 1, bottom - top - 1);
+            if (bottom - top >= 12) {
+                img.setColor(new greenfoot.Color(255, 255, 255));
+                img.drawString(TextLayout.ellipsize(block.getEvent().getName(), smallFont, right - left - 4), left + 2, top + 10);
+            }
+        }
+        return img;
+    }
+
+    /**
+     * Returns the y position of a time of day, clamped to the shown hours.
+     */
+    private int yOf(int minuteOfDay) {
+        int top = HEADER + ALL_DAY;
+        int minutes = Math.max(FIRST_HOUR * 60, Math.min(LAST_HOUR * 60, minuteOfDay));
+        return top + (minutes - FIRST_HOUR * 60) * (height - top - 1) / ((LAST_HOUR - FIRST_HOUR) * 60);
+    }
+
+    /**
+     * Summarizes everything a column's image depends on.
+     */
+    private static String describe(long day, boolean isToday, List<Event> events) {
+        StringBuilder text = new StringBuilder().append(day).append(isToday ? "T" : "");
+        for (Event event : events) {
+            text.append('|').append(event.getId()).append(':').append(event.getStart())
+                .append(':').append(event.getEnd()).append(':').append(event.getName())
+                .append(':').append(event.getCategories());
+        }
+        return text.toString();
+    }
+}
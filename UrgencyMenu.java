@@ -9,6 +9,7 @@ public class UrgencyMenu extends Actor {
     private TaskCard parentCard;  // The card that owns this menu
     private int width = 120;      // Menu width
     private int height = 100;     // Menu height
+    private boolean opening = true; // True until the frame that opened the menu is over
 
     /**
      * Constructor linking this menu to a specific TaskCard.
@@ -63,6 +64,13 @@ public class UrgencyMenu extends Actor {
      * and closes the menu if clicked outside.
      */
     public void act() {
+        // The click that opened the menu is still current in its first frame
+        if (opening) {
+            opening = false;
+            return;
+        }
+
+        long start = Profiler.start();
         MouseInfo mouse = Greenfoot.getMouseInfo();
         if (mouse != null) {
             int mouseX = mouse.getX();
@@ -89,6 +97,7 @@ public class UrgencyMenu extends Actor {
                 if (world != null) world.removeObject(this);
             }
         }
+        Profiler.stop(this, "act", start);
     }
 
     /**
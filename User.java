@@ -14,6 +14,11 @@ public class User implements Serializable {
     private ToDoList tasks;                 // User's personal task list
     private ArrayList<String> notes;        // User's personal notes
     private ArrayList<SchoolTask> schoolTasks; // User's school assignments
+    private ArrayList<Long> noteIds;        // Stable id of each note (parallel to notes), names its history file
+    private long nextNoteId;                // Next note id to hand out
+    private transient CalendarEventStore eventStore; // Calendar events, loaded month by month from disk
+    private transient ActivityCounters activity;     // Daily activity counts, kept in their own file
+    private transient long version;                  // Incremented whenever tasks, assignments or notes change
 
     /**
      * Creates a new user with email, password, and username.
@@ -30,6 +35,7 @@ public class User implements Serializable {
         this.tasks = new ToDoList();
         this.notes = new ArrayList<>();
         this.schoolTasks = new ArrayList<>();
+        this.noteIds = new ArrayList<>();
     }
 
     // Getters
@@ -40,6 +46,106 @@ public class User implements Serializable {
     public String getPassword() { return password; }
     public String getUsername() { return username; }
 
+    /**
+     * Returns the user's calendar event store, creating it on first use.
+     * The store is not serialized with the user; it keeps its own files.
+     *
+     * @return The calendar event store
+     */
+    public CalendarEventStore getEventStore() {
+        if (eventStore == null) eventStore = new CalendarEventStore(this);
+        return eventStore;
+    }
+
+    /**
+     * Returns the user's daily activity counters, loading them on first use.
+     * Like the event store, they are not serialized with the user.
+     *
+     * @return The activity counters
+     */
+    public ActivityCounters getActivity() {
+        if (activity == null) activity = new ActivityCounters(this);
+        return activity;
+    }
+
+    /**
+     * Returns a number that changes whenever the user's tasks, assignments or
+     * notes change, so pages kept by the dashboard know to refresh.
+     *
+     * @return The current version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Records that the user's tasks or assignments were changed. Note
+     * changes made through this class are recorded automatically.
+     */
+    public void changed() {
+        version++;
+    }
+
+    /**
+     * Adds a new note and starts its revision history.
+     *
+     * @param text The note text
+     */
+    public void addNote(String text) {
+        ensureNoteIds();
+        long id = nextNoteId++;
+        notes.add(text);
+        noteIds.add(id);
+        NoteHistory.record(this, id, null, text);
+        version++;
+    }
+
+    /**
+     * Replaces the text of a note, recording the change in its history.
+     *
+     * @param index Index of the note in {@link #getNotes()}
+     * @param text  The new note text
+     */
+    public void updateNote(int index, String text) {
+        ensureNoteIds();
+        String previous = notes.set(index, text);
+        if (!previous.equals(text)) {
+            NoteHistory.record(this, noteIds.get(index), previous, text);
+            version++;
+        }
+    }
+
+    /**
+     * Removes a note and its revision history.
+     *
+     * @param index Index of the note in {@link #getNotes()}
+     */
+    public void removeNote(int index) {
+        ensureNoteIds();
+        notes.remove(index);
+        NoteHistory.delete(this, noteIds.remove(index));
+        version++;
+    }
+
+    /**
+     * Returns the stable id of a note, used to find its history.
+     *
+     * @param index Index of the note in {@link #getNotes()}
+     * @return The note's id
+     */
+    public long getNoteId(int index) {
+        ensureNoteIds();
+        return noteIds.get(index);
+    }
+
+    /**
+     * Gives ids to notes saved before notes had ids.
+     */
+    private void ensureNoteIds() {
+        if (noteIds == null) noteIds = new ArrayList<>();
+        while (noteIds.size() < notes.size()) noteIds.add(nextNoteId++);
+    }
+
     // Optional: could add setters if needed for updating email, username, or password
 }
 